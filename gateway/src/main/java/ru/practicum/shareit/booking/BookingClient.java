@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking;
 
+import java.io.OutputStream;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +11,11 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import ru.practicum.shareit.booking.dto.BookingCartDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
 import ru.practicum.shareit.client.BaseClient;
 
 @Service
@@ -28,8 +32,28 @@ public class BookingClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> create(long userId, BookingDto bookingDto) {
-        return post("", userId, bookingDto);
+    public ResponseEntity<Object> create(long userId, String idempotencyKey, BookingDto bookingDto) {
+        return postIdempotent("", userId, idempotencyKey, bookingDto);
+    }
+
+    public ResponseEntity<Object> createBatch(long userId, String idempotencyKey, BookingCartDto bookingCartDto) {
+        return postIdempotent("/batch", userId, idempotencyKey, bookingCartDto);
+    }
+
+    public ResponseEntity<Object> hold(long userId, BookingHoldDto bookingHoldDto) {
+        return post("/holds", userId, bookingHoldDto);
+    }
+
+    public ResponseEntity<Object> releaseHold(long userId, long itemId) {
+        return delete("/holds/" + itemId, userId);
+    }
+
+    public ResponseEntity<Object> joinWaitlist(long userId, WaitlistEntryDto waitlistEntryDto) {
+        return post("/waitlist", userId, waitlistEntryDto);
+    }
+
+    public ResponseEntity<Object> leaveWaitlist(long userId, long entryId) {
+        return delete("/waitlist/" + entryId, userId);
     }
 
     public ResponseEntity<Object> update(long userId, long bookingId, boolean approved) {
@@ -47,4 +71,12 @@ public class BookingClient extends BaseClient {
     public ResponseEntity<Object> getUserItemsBookings(long userId, BookingState state) {
         return get("/owner?state={state}", userId, Map.of("state", state));
     }
+
+    public ResponseEntity<Object> getCounts(long userId) {
+        return get("/counts", userId);
+    }
+
+    public void streamEvents(long userId, String lastEventId, OutputStream out) {
+        stream("/events", userId, lastEventId, out);
+    }
 }
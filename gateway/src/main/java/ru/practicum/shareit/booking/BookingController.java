@@ -1,12 +1,19 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.booking.dto.BookingCartDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
+import ru.practicum.shareit.client.BaseClient;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -17,8 +24,42 @@ public class BookingController {
 
     @PostMapping
     public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") long userId,
+                                         @RequestHeader(value = BaseClient.IDEMPOTENCY_KEY_HEADER, required = false)
+                                         String idempotencyKey,
                                          @Valid @RequestBody BookingDto bookingDto) {
-        return bookingClient.create(userId, bookingDto);
+        return bookingClient.create(userId, idempotencyKey, bookingDto);
+    }
+
+    @PostMapping("batch")
+    public ResponseEntity<Object> createBatch(@RequestHeader("X-Sharer-User-Id") long userId,
+                                              @RequestHeader(value = BaseClient.IDEMPOTENCY_KEY_HEADER, required = false)
+                                              String idempotencyKey,
+                                              @Valid @RequestBody BookingCartDto bookingCartDto) {
+        return bookingClient.createBatch(userId, idempotencyKey, bookingCartDto);
+    }
+
+    @PostMapping("holds")
+    public ResponseEntity<Object> hold(@RequestHeader("X-Sharer-User-Id") long userId,
+                                       @Valid @RequestBody BookingHoldDto bookingHoldDto) {
+        return bookingClient.hold(userId, bookingHoldDto);
+    }
+
+    @DeleteMapping("holds/{itemId}")
+    public ResponseEntity<Object> releaseHold(@RequestHeader("X-Sharer-User-Id") long userId,
+                                              @PathVariable long itemId) {
+        return bookingClient.releaseHold(userId, itemId);
+    }
+
+    @PostMapping("waitlist")
+    public ResponseEntity<Object> joinWaitlist(@RequestHeader("X-Sharer-User-Id") long userId,
+                                               @Valid @RequestBody WaitlistEntryDto waitlistEntryDto) {
+        return bookingClient.joinWaitlist(userId, waitlistEntryDto);
+    }
+
+    @DeleteMapping("waitlist/{entryId}")
+    public ResponseEntity<Object> leaveWaitlist(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                @PathVariable long entryId) {
+        return bookingClient.leaveWaitlist(userId, entryId);
     }
 
     @PatchMapping("{bookingId}")
@@ -48,4 +89,21 @@ public class BookingController {
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         return bookingClient.getUserItemsBookings(userId, state);
     }
+
+    @GetMapping("counts")
+    public ResponseEntity<Object> getCounts(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingClient.getCounts(userId);
+    }
+
+    // Прокси потока событий: заголовок X-Accel-Buffering отключает буферизацию на балансировщике
+    @GetMapping(value = "events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> events(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                        @RequestHeader(value = "Last-Event-ID", required = false)
+                                                        String lastEventId) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(out -> bookingClient.streamEvents(userId, lastEventId, out));
+    }
 }
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BookingCartDto {
+    @NotEmpty(message = "Корзина бронирований пуста")
+    @Size(max = 50, message = "В корзине не может быть больше 50 бронирований")
+    private List<@Valid BookingDto> bookings;
+}
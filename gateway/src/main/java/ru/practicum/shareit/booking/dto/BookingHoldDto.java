@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class BookingHoldDto {
+    @NotNull(message = "Необходимо указать itemId")
+    private Long itemId;
+
+    @Future(message = "Недопустимая дата начала бронирования")
+    @NotNull(message = "Необходимо указать дату начала бронирования")
+    private LocalDateTime start;
+
+    @Future(message = "Недопустимая дата конца бронирования")
+    @NotNull(message = "Необходимо указать дату окончания бронирования")
+    private LocalDateTime end;
+}
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.client;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -8,11 +10,15 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
 public class BaseClient {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int STREAM_BUFFER_SIZE = 1024;
+
     protected final RestTemplate rest;
 
     public BaseClient(RestTemplate rest) {
@@ -43,6 +49,10 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
+    protected <T> ResponseEntity<Object> postIdempotent(String path, long userId, @Nullable String idempotencyKey, T body) {
+        return makeAndSendRequest(HttpMethod.POST, path, userId, null, body, idempotencyKey);
+    }
+
     protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
@@ -79,8 +89,56 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    // Поток событий сервера (text/event-stream) копируется клиенту по мере поступления, без буферизации ответа
+    protected void stream(String path, long userId, OutputStream out) {
+        stream(path, userId, null, out);
+    }
+
+    // Last-Event-ID переподключившегося клиента передается серверу, чтобы тот повторил пропущенные события
+    protected void stream(String path, long userId, @Nullable String lastEventId, OutputStream out) {
+        rest.execute(path, HttpMethod.GET, request -> {
+            request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+            request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+            if (lastEventId != null) {
+                request.getHeaders().set("Last-Event-ID", lastEventId);
+            }
+        }, response -> {
+            InputStream in = response.getBody();
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+            return null;
+        });
+    }
+
+    // Тело запроса передается серверу по мере чтения, без буферизации в памяти шлюза
+    protected ResponseEntity<Object> postStream(String path, MediaType contentType, InputStream body) {
+        try {
+            return rest.execute(path, HttpMethod.POST, request -> {
+                request.getHeaders().setContentType(contentType);
+                request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                if (request instanceof StreamingHttpOutputMessage streaming) {
+                    streaming.setBody(body::transferTo);
+                } else {
+                    body.transferTo(request.getBody());
+                }
+            }, response -> ResponseEntity.status(response.getStatusCode())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(response.getBody().readAllBytes()));
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        }
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        return makeAndSendRequest(method, path, userId, parameters, body, null);
+    }
+
+    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body, @Nullable String idempotencyKey) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId, idempotencyKey));
 
         ResponseEntity<Object> shareitServerResponse;
         try {
@@ -95,13 +153,16 @@ public class BaseClient {
         return prepareGatewayResponse(shareitServerResponse);
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
+    private HttpHeaders defaultHeaders(Long userId, @Nullable String idempotencyKey) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         if (userId != null) {
             headers.set("X-Sharer-User-Id", String.valueOf(userId));
         }
+        if (idempotencyKey != null) {
+            headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
         return headers;
     }
 
@@ -28,8 +28,8 @@ public class ItemClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> create(long userId, ItemDto itemDto) {
-        return post("", userId, itemDto);
+    public ResponseEntity<Object> create(long userId, String idempotencyKey, ItemDto itemDto) {
+        return postIdempotent("", userId, idempotencyKey, itemDto);
     }
 
     public ResponseEntity<Object> update(long userId, ItemUpdateDto itemUpdateDto, long itemId) {
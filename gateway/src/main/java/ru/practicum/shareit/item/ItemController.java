@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemUpdateDto;
@@ -19,10 +20,12 @@ public class ItemController {
 
     @PostMapping
     public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") long userId,
+                                         @RequestHeader(value = BaseClient.IDEMPOTENCY_KEY_HEADER, required = false)
+                                         String idempotencyKey,
                                          @Valid @RequestBody ItemDto itemDto) {
         log.info("Create item with name {}, description {} and available {}",
                 itemDto.getName(), itemDto.getDescription(), itemDto.getAvailable());
-        return itemClient.create(userId, itemDto);
+        return itemClient.create(userId, idempotencyKey, itemDto);
     }
 
     @PatchMapping("{itemId}")
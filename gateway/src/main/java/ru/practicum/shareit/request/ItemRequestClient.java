@@ -10,6 +10,9 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.io.OutputStream;
+import java.util.Map;
+
 @Service
 public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
@@ -28,15 +31,36 @@ public class ItemRequestClient extends BaseClient {
         return post("", userId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> getOwnRequests(long userId) {
-        return get("", userId);
+    public ResponseEntity<Object> getOwnRequests(long userId, String cursor, int size) {
+        if (cursor == null) {
+            return get("?size={size}", userId, Map.of("size", size));
+        }
+        return get("?cursor={cursor}&size={size}", userId, Map.of("cursor", cursor, "size", size));
+    }
+
+    public ResponseEntity<Object> getOwnRequestSummaries(long userId, String cursor, int size) {
+        if (cursor == null) {
+            return get("?view=summary&size={size}", userId, Map.of("size", size));
+        }
+        return get("?view=summary&cursor={cursor}&size={size}", userId, Map.of("cursor", cursor, "size", size));
     }
 
-    public ResponseEntity<Object> getAllRequests(long userId) {
-        return get("/all", userId);
+    public ResponseEntity<Object> getAllRequests(long userId, String cursor, int size) {
+        if (cursor == null) {
+            return get("/all?size={size}", userId, Map.of("size", size));
+        }
+        return get("/all?cursor={cursor}&size={size}", userId, Map.of("cursor", cursor, "size", size));
     }
 
     public ResponseEntity<Object> getRequest(long userId, long requestId) {
         return get("/" + requestId, userId);
     }
+
+    public ResponseEntity<Object> getSuggestions(long userId, long requestId) {
+        return get("/" + requestId + "/suggestions", userId);
+    }
+
+    public void streamEvents(long userId, OutputStream out) {
+        stream("/events", userId, out);
+    }
 }
@@ -1,10 +1,15 @@
 package ru.practicum.shareit.request;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 @RestController
@@ -22,15 +27,47 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getOwnRequests(@RequestHeader("X-Sharer-User-Id") long userId) {
-        log.info("Get own requests with userId {}", userId);
-        return itemRequestClient.getOwnRequests(userId);
+    public ResponseEntity<Object> getOwnRequests(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "20")
+                                                 @Positive(message = "Размер страницы должен быть положительным")
+                                                 @Max(value = 100, message = "Размер страницы должен быть не больше 100")
+                                                 int size) {
+        log.info("Get own requests with userId {}, cursor {}, size {}", userId, cursor, size);
+        return itemRequestClient.getOwnRequests(userId, cursor, size);
+    }
+
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<Object> getOwnRequestSummaries(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20")
+                                                         @Positive(message = "Размер страницы должен быть положительным")
+                                                         @Max(value = 100, message = "Размер страницы должен быть не больше 100")
+                                                         int size) {
+        log.info("Get own request summaries with userId {}, cursor {}, size {}", userId, cursor, size);
+        return itemRequestClient.getOwnRequestSummaries(userId, cursor, size);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(@RequestHeader("X-Sharer-User-Id") long userId) {
-        log.info("Get all requests with userId {}", userId);
-        return itemRequestClient.getAllRequests(userId);
+    public ResponseEntity<Object> getAllRequests(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "20")
+                                                 @Positive(message = "Размер страницы должен быть положительным")
+                                                 @Max(value = 100, message = "Размер страницы должен быть не больше 100")
+                                                 int size) {
+        log.info("Get all requests with userId {}, cursor {}, size {}", userId, cursor, size);
+        return itemRequestClient.getAllRequests(userId, cursor, size);
+    }
+
+    // Прокси потока новых запросов: заголовок X-Accel-Buffering отключает буферизацию на балансировщике
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> events(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Subscribe to new requests with userId {}", userId);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(out -> itemRequestClient.streamEvents(userId, out));
     }
 
     @GetMapping("/{requestId}")
@@ -39,4 +76,11 @@ public class ItemRequestController {
         log.info("Get request id {}", requestId);
         return itemRequestClient.getRequest(userId, requestId);
     }
+
+    @GetMapping("/{requestId}/suggestions")
+    public ResponseEntity<Object> getSuggestions(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                 @PathVariable long requestId) {
+        log.info("Get suggestions for request id {}", requestId);
+        return itemRequestClient.getSuggestions(userId, requestId);
+    }
 }
\ No newline at end of file
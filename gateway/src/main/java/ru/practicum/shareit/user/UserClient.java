@@ -3,6 +3,7 @@ package ru.practicum.shareit.user;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
@@ -11,6 +12,11 @@ import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserUpdateDto;
 
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
@@ -29,10 +35,21 @@ public class UserClient extends BaseClient {
         return post("", userDto);
     }
 
+    public ResponseEntity<Object> importUsers(InputStream body) {
+        return postStream("/import", MediaType.APPLICATION_NDJSON, body);
+    }
+
     public ResponseEntity<Object> getUser(long userId) {
         return get("/" + userId);
     }
 
+    public ResponseEntity<Object> getUsers(List<Long> userIds) {
+        Map<String, Object> parameters = Map.of(
+                "ids", userIds.stream().map(String::valueOf).collect(Collectors.joining(","))
+        );
+        return get("?ids={ids}", null, parameters);
+    }
+
     public ResponseEntity<Object> update(UserUpdateDto userUpdateDto, long userId) {
         return patch("/" + userId, userUpdateDto);
     }
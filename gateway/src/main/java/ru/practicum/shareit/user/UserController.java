@@ -1,13 +1,19 @@
 package ru.practicum.shareit.user;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserUpdateDto;
 
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
@@ -21,6 +27,22 @@ public class UserController {
         return userClient.create(userDto);
     }
 
+    // Строки NDJSON проверяет сервер: шлюз не буферизует тело, чтобы импорт больших файлов не занимал память
+    @PostMapping(path = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Object> importUsers(InputStream body) {
+        log.info("Importing users");
+        return userClient.importUsers(body);
+    }
+
+    @GetMapping
+    public ResponseEntity<Object> readAll(@RequestParam
+                                          @NotEmpty(message = "Необходимо указать id пользователей")
+                                          @Size(max = 100, message = "За один запрос можно получить не больше 100 пользователей")
+                                          List<Long> ids) {
+        log.info("Get users ids {}", ids);
+        return userClient.getUsers(ids);
+    }
+
     @GetMapping("{id}")
     public ResponseEntity<Object> read(@PathVariable long id) {
         log.info("Get user id {}", id);
@@ -11,20 +11,28 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.booking.BookingClient;
 import ru.practicum.shareit.booking.BookingController;
+import ru.practicum.shareit.booking.dto.BookingCartDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
 
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -57,7 +65,7 @@ public class BookingControllerTest {
     void createTest() throws Exception {
         initialize();
 
-        when(client.create(anyLong(), any(BookingDto.class))).thenReturn(ResponseEntity.ok(responseBookingDto));
+        when(client.create(anyLong(), any(), any(BookingDto.class))).thenReturn(ResponseEntity.ok(responseBookingDto));
 
         mvc.perform(post("/bookings")
                         .header("X-Sharer-User-Id", 3L)
@@ -68,13 +76,31 @@ public class BookingControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(responseBookingDto)));
 
-        verify(client).create(eq(3L), argThat(dto ->
+        verify(client).create(eq(3L), isNull(), argThat(dto ->
                 dto.getId() == bookingDto.getId() &&
                         dto.getItemId().equals(bookingDto.getItemId()) &&
                         dto.getBookerId().equals(bookingDto.getBookerId()))
         );
     }
 
+    @Test
+    void createShouldForwardIdempotencyKey() throws Exception {
+        initialize();
+
+        when(client.create(anyLong(), any(), any(BookingDto.class))).thenReturn(ResponseEntity.ok(responseBookingDto));
+
+        mvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", 3L)
+                        .header("Idempotency-Key", "key-1")
+                        .content(mapper.writeValueAsString(bookingDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(client).create(eq(3L), eq("key-1"), any(BookingDto.class));
+    }
+
     @Test
     void updateTest() throws Exception {
         initialize();
@@ -146,6 +172,149 @@ public class BookingControllerTest {
         verify(client).getUserItemsBookings(eq(3L), eq(BookingState.CURRENT));
     }
 
+    @Test
+    void getCountsTest() throws Exception {
+        Map<String, Object> counts = Map.of("booker", Map.of("all", 2), "owner", Map.of("all", 0));
+
+        when(client.getCounts(anyLong())).thenReturn(ResponseEntity.ok(counts));
+
+        mvc.perform(get("/bookings/counts")
+                        .header("X-Sharer-User-Id", 3L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.booker.all").value(2))
+                .andExpect(jsonPath("$.owner.all").value(0));
+
+        verify(client).getCounts(eq(3L));
+    }
+
+    @Test
+    void eventsShouldStreamServerEvents() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write("event:booking\ndata:{\"bookingId\":1}\n\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(client).streamEvents(anyLong(), any(), any(OutputStream.class));
+
+        MvcResult result = mvc.perform(get("/bookings/events")
+                        .header("X-Sharer-User-Id", 3L)
+                        .header("Last-Event-ID", "42")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Accel-Buffering", "no"))
+                .andExpect(content().string(containsString("\"bookingId\":1")));
+
+        verify(client).streamEvents(eq(3L), eq("42"), any(OutputStream.class));
+    }
+
+    @Test
+    void createBatchTest() throws Exception {
+        initialize();
+        BookingCartDto cartDto = new BookingCartDto();
+        cartDto.setBookings(List.of(bookingDto));
+
+        when(client.createBatch(anyLong(), any(), any(BookingCartDto.class)))
+                .thenReturn(ResponseEntity.ok(List.of(responseBookingDto)));
+
+        mvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 3L)
+                        .content(mapper.writeValueAsString(cartDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(client).createBatch(eq(3L), isNull(), argThat(dto -> dto.getBookings().size() == 1));
+    }
+
+    @Test
+    void createBatchShouldReturnBadRequestIfCartIsEmpty() throws Exception {
+        BookingCartDto cartDto = new BookingCartDto();
+        cartDto.setBookings(List.of());
+
+        mvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 3L)
+                        .content(mapper.writeValueAsString(cartDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void holdTest() throws Exception {
+        BookingHoldDto holdDto = new BookingHoldDto();
+        holdDto.setItemId(2L);
+        holdDto.setStart(LocalDateTime.now().plusHours(1));
+        holdDto.setEnd(holdDto.getStart().plusDays(1));
+
+        when(client.hold(anyLong(), any(BookingHoldDto.class))).thenReturn(ResponseEntity.ok(holdDto));
+
+        mvc.perform(post("/bookings/holds")
+                        .header("X-Sharer-User-Id", 3L)
+                        .content(mapper.writeValueAsString(holdDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId").value(2));
+
+        verify(client).hold(eq(3L), argThat(dto -> dto.getItemId().equals(2L)));
+    }
+
+    @Test
+    void holdShouldReturnBadRequestIfItemIdIsMissing() throws Exception {
+        BookingHoldDto holdDto = new BookingHoldDto();
+        holdDto.setStart(LocalDateTime.now().plusHours(1));
+        holdDto.setEnd(holdDto.getStart().plusDays(1));
+
+        mvc.perform(post("/bookings/holds")
+                        .header("X-Sharer-User-Id", 3L)
+                        .content(mapper.writeValueAsString(holdDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void releaseHoldTest() throws Exception {
+        when(client.releaseHold(anyLong(), anyLong())).thenReturn(ResponseEntity.ok().build());
+
+        mvc.perform(delete("/bookings/holds/2")
+                        .header("X-Sharer-User-Id", 3L))
+                .andExpect(status().isOk());
+
+        verify(client).releaseHold(eq(3L), eq(2L));
+    }
+
+    @Test
+    void joinWaitlistTest() throws Exception {
+        WaitlistEntryDto waitlistEntryDto = new WaitlistEntryDto();
+        waitlistEntryDto.setItemId(2L);
+        waitlistEntryDto.setStart(LocalDateTime.now().plusHours(1));
+        waitlistEntryDto.setEnd(waitlistEntryDto.getStart().plusDays(1));
+
+        when(client.joinWaitlist(anyLong(), any(WaitlistEntryDto.class)))
+                .thenReturn(ResponseEntity.ok(waitlistEntryDto));
+
+        mvc.perform(post("/bookings/waitlist")
+                        .header("X-Sharer-User-Id", 3L)
+                        .content(mapper.writeValueAsString(waitlistEntryDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId").value(2));
+
+        verify(client).joinWaitlist(eq(3L), argThat(dto -> dto.getItemId().equals(2L)));
+    }
+
     private void initialize() {
         bookingDto = new BookingDto();
         bookingDto.setId(5L);
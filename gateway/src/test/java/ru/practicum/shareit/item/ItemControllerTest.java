@@ -68,7 +68,7 @@ public class ItemControllerTest {
         initialize();
         itemDto.setId(1L);
 
-        when(client.create(anyLong(), any(ItemDto.class))).thenReturn(ResponseEntity.ok(itemDto));
+        when(client.create(anyLong(), any(), any(ItemDto.class))).thenReturn(ResponseEntity.ok(itemDto));
 
         // Выполняем HTTP POST запрос к эндпоинту /items
         mvc.perform(post("/items")
@@ -89,7 +89,7 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.available", is(itemDto.getAvailable())));
 
         // Проверка вызова сервиса с правильными параметрами
-        verify(client).create(eq(1L), argThat(dto ->
+        verify(client).create(eq(1L), isNull(), argThat(dto ->
                 dto.getName().equals(itemDto.getName()) &&
                         dto.getDescription().equals(itemDto.getDescription()) &&
                         dto.getAvailable().equals(itemDto.getAvailable()))
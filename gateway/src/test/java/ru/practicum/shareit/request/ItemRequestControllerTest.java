@@ -11,6 +11,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.item.dto.ResponseItemDto;
 import ru.practicum.shareit.request.ItemRequestClient;
@@ -18,15 +19,21 @@ import ru.practicum.shareit.request.ItemRequestController;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestExtendedDto;
 
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -79,7 +86,7 @@ public class ItemRequestControllerTest {
 
         List<ItemRequestExtendedDto> result = List.of(itemRequestExtendedDto);
 
-        when(client.getOwnRequests(anyLong())).thenReturn(ResponseEntity.ok(result));
+        when(client.getOwnRequests(anyLong(), any(), anyInt())).thenReturn(ResponseEntity.ok(result));
 
         mvc.perform(get("/requests")
                         .header("X-Sharer-User-Id", 7)
@@ -88,7 +95,25 @@ public class ItemRequestControllerTest {
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(content().json(mapper.writeValueAsString(result)));
 
-        verify(client).getOwnRequests(eq(7L));
+        verify(client).getOwnRequests(eq(7L), isNull(), eq(20));
+    }
+
+    @Test
+    void getOwnRequestSummariesTest() throws Exception {
+        List<Map<String, Object>> result = List.of(Map.of("id", 1, "description", "description",
+                "requesterId", 7, "responseCount", 2, "created", "01.01.2025 12:00:00"));
+
+        when(client.getOwnRequestSummaries(anyLong(), any(), anyInt())).thenReturn(ResponseEntity.ok(result));
+
+        mvc.perform(get("/requests?view=summary&size=5")
+                        .header("X-Sharer-User-Id", 7)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(result)))
+                .andExpect(jsonPath("$[0].responseCount").value(2))
+                .andExpect(jsonPath("$[0].items").doesNotExist());
+
+        verify(client).getOwnRequestSummaries(eq(7L), isNull(), eq(5));
     }
 
     @Test
@@ -97,7 +122,7 @@ public class ItemRequestControllerTest {
 
         List<ItemRequestDto> result = List.of(itemRequestDto);
 
-        when(client.getAllRequests(anyLong())).thenReturn(ResponseEntity.ok(result));
+        when(client.getAllRequests(anyLong(), any(), anyInt())).thenReturn(ResponseEntity.ok(result));
 
         mvc.perform(get("/requests/all")
                         .header("X-Sharer-User-Id", 7)
@@ -106,7 +131,18 @@ public class ItemRequestControllerTest {
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(content().json(mapper.writeValueAsString(result)));
 
-        verify(client).getAllRequests(eq(7L));
+        verify(client).getAllRequests(eq(7L), isNull(), eq(20));
+    }
+
+    @Test
+    void getAllRequestsShouldReturnBadRequestIfSizeIsTooLarge() throws Exception {
+        mvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", 7)
+                        .param("size", "101")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(client, never()).getAllRequests(anyLong(), any(), anyInt());
     }
 
     @Test
@@ -124,6 +160,43 @@ public class ItemRequestControllerTest {
         verify(client).getRequest(eq(7L), eq(1L));
     }
 
+    @Test
+    void getSuggestionsTest() throws Exception {
+        List<Map<String, Object>> suggestions = List.of(Map.of("id", 5, "name", "drill", "ownerId", 2, "score", 1.5));
+
+        when(client.getSuggestions(anyLong(), anyLong())).thenReturn(ResponseEntity.ok(suggestions));
+
+        mvc.perform(get("/requests/1/suggestions")
+                        .header("X-Sharer-User-Id", 7)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(suggestions)));
+
+        verify(client).getSuggestions(eq(7L), eq(1L));
+    }
+
+    @Test
+    void eventsShouldStreamServerEvents() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("event:request\ndata:{\"id\":1}\n\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(client).streamEvents(anyLong(), any(OutputStream.class));
+
+        MvcResult result = mvc.perform(get("/requests/events")
+                        .header("X-Sharer-User-Id", 7)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Accel-Buffering", "no"))
+                .andExpect(content().string(containsString("event:request")));
+
+        verify(client).streamEvents(eq(7L), any(OutputStream.class));
+    }
+
     private void initialize() {
         itemRequestDto = new ItemRequestDto();
         itemRequestDto.setId(1);
@@ -16,12 +16,18 @@ import ru.practicum.shareit.user.UserController;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserUpdateDto;
 
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -64,6 +70,19 @@ public class UserControllerTest {
         );
     }
 
+    @Test
+    void importUsersShouldRelayBodyToClient() throws Exception {
+        when(client.importUsers(any(InputStream.class))).thenReturn(ResponseEntity.ok().build());
+
+        mvc.perform(post("/users/import")
+                        .content("{\"name\":\"name1\",\"email\":\"email@email.ru\"}\n")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk());
+
+        verify(client).importUsers(any(InputStream.class));
+    }
+
     @Test
     void readTest() throws Exception {
         initialize();
@@ -78,6 +97,31 @@ public class UserControllerTest {
         verify(client).getUser(1);
     }
 
+    @Test
+    void readAllTest() throws Exception {
+        initialize();
+
+        when(client.getUsers(anyList())).thenReturn(ResponseEntity.ok(List.of(userDto)));
+
+        mvc.perform(get("/users")
+                        .param("ids", "1,2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(client).getUsers(List.of(1L, 2L));
+    }
+
+    @Test
+    void readAllShouldReturnBadRequestIfTooManyIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, 101).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        mvc.perform(get("/users")
+                        .param("ids", ids)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void updateTest() throws Exception {
         initialize();
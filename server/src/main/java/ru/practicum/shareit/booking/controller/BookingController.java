@@ -1,10 +1,17 @@
 package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingCartDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.common.idempotency.IdempotencyStore;
 
 import java.util.List;
 
@@ -13,11 +20,51 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookingController {
     private final BookingService bookingService;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping
     public ResponseBookingDto create(@RequestHeader("X-Sharer-User-Id") long userId,
+                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                      @RequestBody BookingDto bookingDto) {
-        return bookingService.create(userId, bookingDto);
+        return idempotencyStore.execute("bookings", userId, idempotencyKey, bookingDto,
+                () -> bookingService.create(userId, bookingDto));
+    }
+
+    @PostMapping("batch")
+    public List<ResponseBookingDto> createBatch(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                @RequestHeader(value = "Idempotency-Key", required = false)
+                                                String idempotencyKey,
+                                                @RequestBody BookingCartDto bookingCartDto) {
+        return idempotencyStore.execute("bookings/batch", userId, idempotencyKey, bookingCartDto,
+                () -> bookingService.createBatch(userId, bookingCartDto));
+    }
+
+    @PostMapping("holds")
+    public BookingHoldDto hold(@RequestHeader("X-Sharer-User-Id") long userId,
+                               @RequestBody BookingHoldDto bookingHoldDto) {
+        return bookingService.hold(userId, bookingHoldDto);
+    }
+
+    @DeleteMapping("holds/{itemId}")
+    public void releaseHold(@RequestHeader("X-Sharer-User-Id") long userId, @PathVariable long itemId) {
+        bookingService.releaseHold(userId, itemId);
+    }
+
+    @GetMapping(value = "events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader("X-Sharer-User-Id") long userId,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return bookingService.subscribe(userId, lastEventId);
+    }
+
+    @PostMapping("waitlist")
+    public WaitlistEntryDto joinWaitlist(@RequestHeader("X-Sharer-User-Id") long userId,
+                                         @RequestBody WaitlistEntryDto waitlistEntryDto) {
+        return bookingService.joinWaitlist(userId, waitlistEntryDto);
+    }
+
+    @DeleteMapping("waitlist/{entryId}")
+    public void leaveWaitlist(@RequestHeader("X-Sharer-User-Id") long userId, @PathVariable long entryId) {
+        bookingService.leaveWaitlist(userId, entryId);
     }
 
     @PatchMapping("{bookingId}")
@@ -43,4 +90,9 @@ public class BookingController {
                                                          @RequestParam(defaultValue = "ALL") String state) {
         return bookingService.getUserItemsBookings(userId, state);
     }
+
+    @GetMapping("counts")
+    public BookingCountsDto getCounts(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingService.getCounts(userId);
+    }
 }
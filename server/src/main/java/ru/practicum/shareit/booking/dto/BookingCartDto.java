@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BookingCartDto {
+    private List<BookingDto> bookings;
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+@Data
+public class BookingCountsDto {
+    private BookingStateCountsDto booker;
+
+    private BookingStateCountsDto owner;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.time.LocalDateTime;
+
+public interface BookingEligibilityDto {
+    long getId();
+
+    long getBookerId();
+
+    long getItemId();
+
+    LocalDateTime getEnd();
+}
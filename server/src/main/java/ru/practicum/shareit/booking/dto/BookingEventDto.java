@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class BookingEventDto {
+    private long id;
+
+    private long bookingId;
+
+    private long itemId;
+
+    private long bookerId;
+
+    private long ownerId;
+
+    private String status;
+
+    private LocalDateTime created;
+}
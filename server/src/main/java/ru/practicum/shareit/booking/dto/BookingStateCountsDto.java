@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+@Data
+public class BookingStateCountsDto {
+    private long all;
+
+    private long current;
+
+    private long past;
+
+    private long future;
+
+    private long waiting;
+
+    private long rejected;
+}
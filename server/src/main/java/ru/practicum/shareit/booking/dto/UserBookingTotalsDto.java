@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+public interface UserBookingTotalsDto {
+    long getUserId();
+
+    long getTotal();
+
+    long getWaiting();
+
+    long getRejected();
+
+    long getPast();
+}
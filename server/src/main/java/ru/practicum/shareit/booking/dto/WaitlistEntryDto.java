@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class WaitlistEntryDto {
+    private long id;
+
+    private Long itemId;
+
+    private Long bookerId;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+}
@@ -2,15 +2,22 @@ package ru.practicum.shareit.booking.mapper;
 
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.dto.ShortBookingDto;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEvent;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.model.WaitlistEntry;
 import ru.practicum.shareit.item.dto.ShortItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.ShortUserDto;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+
 @UtilityClass
 public class BookingMapper {
     public BookingDto toBookingDto(Booking booking) {
@@ -48,6 +55,19 @@ public class BookingMapper {
         return responseBookingDto;
     }
 
+    public ResponseBookingDto toResponseBookingDto(ArchivedBooking booking,
+                                                   ShortItemDto shortItemDto,
+                                                   ShortUserDto shortUserDto) {
+        ResponseBookingDto responseBookingDto = new ResponseBookingDto();
+        responseBookingDto.setId(booking.getId());
+        responseBookingDto.setStart(booking.getStart());
+        responseBookingDto.setEnd(booking.getEnd());
+        responseBookingDto.setItem(shortItemDto);
+        responseBookingDto.setBooker(shortUserDto);
+        responseBookingDto.setStatus(booking.getStatus().name());
+        return responseBookingDto;
+    }
+
     public ShortBookingDto toShortBookingDto(Booking booking) {
         ShortBookingDto shortBookingDto = new ShortBookingDto();
         shortBookingDto.setId(booking.getId());
@@ -56,4 +76,47 @@ public class BookingMapper {
         shortBookingDto.setBookerId(booking.getBooker().getId());
         return shortBookingDto;
     }
+
+    //id записи присваивает база: переданный клиентом id перезаписал бы чужую запись очереди
+    public WaitlistEntry toWaitlistEntry(WaitlistEntryDto waitlistEntryDto, long bookerId) {
+        WaitlistEntry waitlistEntry = new WaitlistEntry();
+        waitlistEntry.setItemId(waitlistEntryDto.getItemId());
+        waitlistEntry.setBookerId(bookerId);
+        waitlistEntry.setStart(waitlistEntryDto.getStart());
+        waitlistEntry.setEnd(waitlistEntryDto.getEnd());
+        return waitlistEntry;
+    }
+
+    public WaitlistEntryDto toWaitlistEntryDto(WaitlistEntry waitlistEntry) {
+        WaitlistEntryDto waitlistEntryDto = new WaitlistEntryDto();
+        waitlistEntryDto.setId(waitlistEntry.getId());
+        waitlistEntryDto.setItemId(waitlistEntry.getItemId());
+        waitlistEntryDto.setBookerId(waitlistEntry.getBookerId());
+        waitlistEntryDto.setStart(waitlistEntry.getStart());
+        waitlistEntryDto.setEnd(waitlistEntry.getEnd());
+        return waitlistEntryDto;
+    }
+
+    public BookingEvent toBookingEvent(Booking booking) {
+        BookingEvent bookingEvent = new BookingEvent();
+        bookingEvent.setBookingId(booking.getId());
+        bookingEvent.setItemId(booking.getItem().getId());
+        bookingEvent.setBookerId(booking.getBooker().getId());
+        bookingEvent.setOwnerId(booking.getItem().getOwner().getId());
+        bookingEvent.setStatus(booking.getStatus());
+        bookingEvent.setCreated(LocalDateTime.now());
+        return bookingEvent;
+    }
+
+    public BookingEventDto toBookingEventDto(BookingEvent bookingEvent) {
+        BookingEventDto bookingEventDto = new BookingEventDto();
+        bookingEventDto.setId(bookingEvent.getId());
+        bookingEventDto.setBookingId(bookingEvent.getBookingId());
+        bookingEventDto.setItemId(bookingEvent.getItemId());
+        bookingEventDto.setBookerId(bookingEvent.getBookerId());
+        bookingEventDto.setOwnerId(bookingEvent.getOwnerId());
+        bookingEventDto.setStatus(bookingEvent.getStatus().name());
+        bookingEventDto.setCreated(bookingEvent.getCreated());
+        return bookingEventDto;
+    }
 }
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+//Завершенное бронирование, перенесенное из таблицы bookings в архивные сегменты
+@Getter
+@AllArgsConstructor
+public class ArchivedBooking {
+    private final long id;
+
+    private final LocalDateTime start;
+
+    private final LocalDateTime end;
+
+    private final long itemId;
+
+    private final long bookerId;
+
+    private final long ownerId;
+
+    private final Status status;
+}
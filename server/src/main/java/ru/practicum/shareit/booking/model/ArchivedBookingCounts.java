@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Итоги архивных бронирований одного арендатора или владельца. Все архивные бронирования уже закончились
+@Getter
+@AllArgsConstructor
+public class ArchivedBookingCounts {
+    private final long userId;
+
+    private final long total;
+
+    private final long waiting;
+
+    private final long rejected;
+}
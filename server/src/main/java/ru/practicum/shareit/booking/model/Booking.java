@@ -11,12 +11,14 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "bookings")
+@EntityListeners(CommentEligibilityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_id_seq")
+    @SequenceGenerator(name = "bookings_id_seq", sequenceName = "bookings_id_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "start_date")
@@ -35,4 +37,8 @@ public class Booking {
 
     @Enumerated(EnumType.STRING)
     private Status status;
+
+    //статус в базе до текущих изменений, см. CommentEligibilityListener
+    @Transient
+    private Status persistedStatus;
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+//Событие изменения статуса бронирования (outbox). Пишется в той же транзакции, что и само бронирование.
+//При разборе получает время публикации и сквозной номер в потоке (см. BookingEventRelay)
+//и хранится до конца срока хранения.
+@Entity
+@Table(name = "booking_events")
+@Getter
+@Setter
+@NoArgsConstructor
+public class BookingEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_events_seq")
+    @SequenceGenerator(name = "booking_events_seq", sequenceName = "booking_events_seq", allocationSize = 50)
+    private long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private long bookingId;
+
+    @Column(name = "item_id", nullable = false)
+    private long itemId;
+
+    @Column(name = "booker_id", nullable = false)
+    private long bookerId;
+
+    @Column(name = "owner_id", nullable = false)
+    private long ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private LocalDateTime created;
+
+    private LocalDateTime published;
+
+    @Column(name = "stream_position")
+    private Long streamPosition;
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.booking.model;
+
+import java.util.List;
+
+//Бронирования, удаленные вместе с данными удаленного пользователя (см. UserPurgeJob)
+public record BookingsPurgedEvent(List<ArchivedBooking> bookings) {
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking.model;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import ru.practicum.shareit.booking.service.CommentEligibilityIndex;
+
+//Передает в индекс права на отзыв все записи бронирований через JPA вместе со статусом до записи.
+//Статус, который лежит в базе, запоминается в бронировании при загрузке и после каждой записи.
+//Индекс запрашивается лениво: слушатель создается вместе с EntityManagerFactory, раньше репозиториев.
+public class CommentEligibilityListener {
+    private final ObjectProvider<CommentEligibilityIndex> index;
+
+    public CommentEligibilityListener(ObjectProvider<CommentEligibilityIndex> index) {
+        this.index = index;
+    }
+
+    @PostLoad
+    public void onLoaded(Booking booking) {
+        booking.setPersistedStatus(booking.getStatus());
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Booking booking) {
+        Status oldStatus = booking.getPersistedStatus();
+        booking.setPersistedStatus(booking.getStatus());
+        index.ifAvailable(commentEligibilityIndex -> commentEligibilityIndex.onSaved(booking, oldStatus));
+    }
+}
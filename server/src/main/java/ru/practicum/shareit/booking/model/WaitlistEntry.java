@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+//Запись в очереди ожидания вещи. Хранит только идентификаторы, порядок очереди задается id.
+@Entity
+@Table(name = "waitlist")
+@Getter
+@Setter
+@NoArgsConstructor
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "waitlist_seq")
+    @SequenceGenerator(name = "waitlist_seq", sequenceName = "waitlist_seq", allocationSize = 50)
+    private long id;
+
+    @Column(name = "item_id", nullable = false)
+    private long itemId;
+
+    @Column(name = "booker_id", nullable = false)
+    private long bookerId;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDateTime start;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDateTime end;
+}
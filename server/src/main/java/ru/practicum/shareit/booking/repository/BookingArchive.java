@@ -0,0 +1,402 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.ArchivedBookingCounts;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.common.exceptions.InternalServerException;
+import ru.practicum.shareit.user.model.UserPurgedEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+//Архив завершенных бронирований на локальном диске.
+//Каждый сегмент - неизменяемый сжатый файл, в котором данные лежат по колонкам (.seg),
+//и рядом разреженный индекс: отсортированные id бронирований, арендаторов и владельцев сегмента (.idx).
+//В индексе же лежат итоги по каждому арендатору и владельцу и самая поздняя дата окончания:
+//по ним прогреваются счетчики бронирований без чтения сегментов.
+//Индексы всех сегментов держатся в памяти, читаются только сегменты, где есть нужный id.
+//Повторная запись уже архивированного бронирования пропускается, поэтому перенос можно безопасно повторить.
+//Бронирования удаленного пользователя убираются переписыванием сегментов, где он есть, в новые файлы.
+@Slf4j
+@Component
+public class BookingArchive {
+    private static final int FORMAT_VERSION = 1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final Status[] STATUSES = Status.values();
+
+    private final Path directory;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private long nextSegment;
+
+    public BookingArchive(@Value("${shareit.booking.archive.dir:archive}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(INDEX_SUFFIX))
+                    .sorted()
+                    .forEach(indexFile -> segments.add(readIndex(indexFile)));
+        } catch (IOException e) {
+            throw new InternalServerException("Не удалось прочитать архив бронирований: " + e.getMessage());
+        }
+        log.info("Загружен архив бронирований: {} сегментов", segments.size());
+    }
+
+    //сегмент считается записанным, только когда на диске появился его индекс
+    public synchronized void append(List<ArchivedBooking> bookings) {
+        List<ArchivedBooking> newBookings = bookings.stream()
+                .filter(booking -> !contains(booking.getId()))
+                .toList();
+        if (newBookings.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Segment segment = writeNewSegment(newBookings);
+            segments.add(segment);
+            log.info("В архив {} перенесено {} бронирований", segment.file().getFileName(), newBookings.size());
+        } catch (IOException e) {
+            throw new InternalServerException("Не удалось записать сегмент архива бронирований: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onUserPurged(UserPurgedEvent event) {
+        afterCommit(() -> removeUser(event.userId()));
+    }
+
+    //новый сегмент записывается до удаления старого: сбой между ними оставляет копию строк, но не теряет их
+    public synchronized void removeUser(long userId) {
+        for (Segment segment : segments) {
+            if (Arrays.binarySearch(segment.bookerIds(), userId) < 0
+                    && Arrays.binarySearch(segment.ownerIds(), userId) < 0) {
+                continue;
+            }
+            List<ArchivedBooking> kept = readSegment(segment.file()).stream()
+                    .filter(booking -> booking.getBookerId() != userId && booking.getOwnerId() != userId)
+                    .toList();
+            try {
+                if (kept.isEmpty()) {
+                    segments.remove(segment);
+                } else {
+                    segments.set(segments.indexOf(segment), writeNewSegment(kept));
+                }
+                Files.delete(indexFile(segment.file()));
+                Files.delete(segment.file());
+            } catch (IOException e) {
+                throw new InternalServerException("Не удалось переписать сегмент архива " + segment.file() + ": " +
+                        e.getMessage());
+            }
+        }
+        log.info("Из архива удалены бронирования пользователя {}", userId);
+    }
+
+    public boolean contains(long bookingId) {
+        for (Segment segment : segments) {
+            if (Arrays.binarySearch(segment.ids(), bookingId) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<ArchivedBooking> findAllByBookerId(long bookerId) {
+        return find(segment -> Arrays.binarySearch(segment.bookerIds(), bookerId) >= 0,
+                booking -> booking.getBookerId() == bookerId);
+    }
+
+    public List<ArchivedBooking> findAllByOwnerId(long ownerId) {
+        return find(segment -> Arrays.binarySearch(segment.ownerIds(), ownerId) >= 0,
+                booking -> booking.getOwnerId() == ownerId);
+    }
+
+    public List<ArchivedBooking> findAll() {
+        return find(segment -> true, booking -> true);
+    }
+
+    public List<ArchivedBookingCounts> countByBookerId() {
+        return countBy(Segment::bookerIds, Segment::bookerCounts);
+    }
+
+    public List<ArchivedBookingCounts> countByOwnerId() {
+        return countBy(Segment::ownerIds, Segment::ownerCounts);
+    }
+
+    //строки таблицы, закончившиеся раньше этой даты, уже должны быть в архиве
+    public Optional<LocalDateTime> findLatestEnd() {
+        return segments.stream().map(Segment::latestEnd).max(Comparator.naturalOrder());
+    }
+
+    private List<ArchivedBookingCounts> countBy(Function<Segment, long[]> userIds, Function<Segment, Counts> counts) {
+        Map<Long, long[]> totals = new HashMap<>();
+        for (Segment segment : segments) {
+            long[] ids = userIds.apply(segment);
+            Counts segmentCounts = counts.apply(segment);
+            for (int i = 0; i < ids.length; i++) {
+                long[] total = totals.computeIfAbsent(ids[i], key -> new long[3]);
+                total[0] += segmentCounts.total()[i];
+                total[1] += segmentCounts.waiting()[i];
+                total[2] += segmentCounts.rejected()[i];
+            }
+        }
+        return totals.entrySet().stream()
+                .map(total -> new ArchivedBookingCounts(total.getKey(), total.getValue()[0], total.getValue()[1],
+                        total.getValue()[2]))
+                .toList();
+    }
+
+    private List<ArchivedBooking> find(Predicate<Segment> segmentFilter, Predicate<ArchivedBooking> rowFilter) {
+        List<ArchivedBooking> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segmentFilter.test(segment)) {
+                readSegment(segment.file()).stream().filter(rowFilter).forEach(result::add);
+            }
+        }
+        return result;
+    }
+
+    private Segment writeNewSegment(List<ArchivedBooking> bookings) throws IOException {
+        String name = String.format("segment-%019d", System.currentTimeMillis()) + "-" + nextSegment++;
+        Path segmentFile = directory.resolve(name + SEGMENT_SUFFIX);
+        writeAtomically(segmentFile, out -> writeSegment(out, bookings));
+
+        Segment segment = Segment.of(segmentFile, bookings);
+        writeAtomically(indexFile(segmentFile), out -> writeIndex(out, segment));
+        return segment;
+    }
+
+    private static Path indexFile(Path segmentFile) {
+        String fileName = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length())
+                + INDEX_SUFFIX);
+    }
+
+    private static void writeSegment(DataOutputStream out, List<ArchivedBooking> bookings) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(bookings.size());
+        for (ArchivedBooking booking : bookings) {
+            out.writeLong(booking.getId());
+        }
+        for (ArchivedBooking booking : bookings) {
+            writeDateTime(out, booking.getStart());
+        }
+        for (ArchivedBooking booking : bookings) {
+            writeDateTime(out, booking.getEnd());
+        }
+        for (ArchivedBooking booking : bookings) {
+            out.writeLong(booking.getItemId());
+        }
+        for (ArchivedBooking booking : bookings) {
+            out.writeLong(booking.getBookerId());
+        }
+        for (ArchivedBooking booking : bookings) {
+            out.writeLong(booking.getOwnerId());
+        }
+        for (ArchivedBooking booking : bookings) {
+            out.writeByte(booking.getStatus().ordinal());
+        }
+    }
+
+    private static List<ArchivedBooking> readSegment(Path file) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+                new BufferedInputStream(Files.newInputStream(file))))) {
+            checkVersion(in.readInt(), file);
+            int size = in.readInt();
+
+            long[] ids = readLongs(in, size);
+            LocalDateTime[] starts = new LocalDateTime[size];
+            for (int i = 0; i < size; i++) {
+                starts[i] = readDateTime(in);
+            }
+            LocalDateTime[] ends = new LocalDateTime[size];
+            for (int i = 0; i < size; i++) {
+                ends[i] = readDateTime(in);
+            }
+            long[] itemIds = readLongs(in, size);
+            long[] bookerIds = readLongs(in, size);
+            long[] ownerIds = readLongs(in, size);
+
+            List<ArchivedBooking> bookings = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                bookings.add(new ArchivedBooking(ids[i], starts[i], ends[i], itemIds[i], bookerIds[i], ownerIds[i],
+                        STATUSES[in.readByte()]));
+            }
+            return bookings;
+        } catch (IOException e) {
+            throw new InternalServerException("Не удалось прочитать сегмент архива " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeIndex(DataOutputStream out, Segment segment) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        writeLongs(out, segment.ids());
+        writeLongs(out, segment.bookerIds());
+        writeLongs(out, segment.ownerIds());
+        writeCounts(out, segment.bookerCounts());
+        writeCounts(out, segment.ownerCounts());
+        writeDateTime(out, segment.latestEnd());
+    }
+
+    private Segment readIndex(Path indexFile) {
+        String fileName = indexFile.getFileName().toString();
+        Path segmentFile = indexFile.resolveSibling(fileName.substring(0, fileName.length() - INDEX_SUFFIX.length())
+                + SEGMENT_SUFFIX);
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+                new BufferedInputStream(Files.newInputStream(indexFile))))) {
+            checkVersion(in.readInt(), indexFile);
+            long[] ids = readLongs(in, in.readInt());
+            long[] bookerIds = readLongs(in, in.readInt());
+            long[] ownerIds = readLongs(in, in.readInt());
+            return new Segment(segmentFile, ids, bookerIds, ownerIds, readCounts(in, bookerIds.length),
+                    readCounts(in, ownerIds.length), readDateTime(in));
+        } catch (IOException e) {
+            throw new InternalServerException("Не удалось прочитать индекс архива " + indexFile + ": " +
+                    e.getMessage());
+        }
+    }
+
+    private static void writeAtomically(Path target, SegmentWriter writer) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(file)))) {
+            writer.write(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeCounts(DataOutputStream out, Counts counts) throws IOException {
+        for (long[] values : List.of(counts.total(), counts.waiting(), counts.rejected())) {
+            for (long value : values) {
+                out.writeLong(value);
+            }
+        }
+    }
+
+    private static Counts readCounts(DataInputStream in, int size) throws IOException {
+        return new Counts(readLongs(in, size), readLongs(in, size), readLongs(in, size));
+    }
+
+    private static long[] sortedDistinct(List<ArchivedBooking> bookings, ToLongFunction<ArchivedBooking> key) {
+        return bookings.stream().mapToLong(key).distinct().sorted().toArray();
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        out.writeInt(values.length);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static long[] readLongs(DataInputStream in, int size) throws IOException {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        long epochSecond = in.readLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static void checkVersion(int version, Path file) throws IOException {
+        if (version != FORMAT_VERSION) {
+            throw new IOException("неизвестная версия формата " + version + " в файле " + file);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private interface SegmentWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private record Segment(Path file, long[] ids, long[] bookerIds, long[] ownerIds,
+                           Counts bookerCounts, Counts ownerCounts, LocalDateTime latestEnd) {
+        static Segment of(Path file, List<ArchivedBooking> bookings) {
+            long[] bookerIds = sortedDistinct(bookings, ArchivedBooking::getBookerId);
+            long[] ownerIds = sortedDistinct(bookings, ArchivedBooking::getOwnerId);
+            LocalDateTime latestEnd = bookings.stream().map(ArchivedBooking::getEnd)
+                    .max(Comparator.naturalOrder())
+                    .orElseThrow();
+            return new Segment(file,
+                    sortedDistinct(bookings, ArchivedBooking::getId),
+                    bookerIds,
+                    ownerIds,
+                    Counts.of(bookings, bookerIds, ArchivedBooking::getBookerId),
+                    Counts.of(bookings, ownerIds, ArchivedBooking::getOwnerId),
+                    latestEnd);
+        }
+    }
+
+    //итоги по пользователям: i-й элемент каждого массива относится к i-му id из bookerIds или ownerIds
+    private record Counts(long[] total, long[] waiting, long[] rejected) {
+        static Counts of(List<ArchivedBooking> bookings, long[] userIds, ToLongFunction<ArchivedBooking> user) {
+            Counts counts = new Counts(new long[userIds.length], new long[userIds.length], new long[userIds.length]);
+            for (ArchivedBooking booking : bookings) {
+                int i = Arrays.binarySearch(userIds, user.applyAsLong(booking));
+                counts.total()[i]++;
+                switch (booking.getStatus()) {
+                    case WAITING -> counts.waiting()[i]++;
+                    case REJECTED -> counts.rejected()[i]++;
+                    default -> {
+                    }
+                }
+            }
+            return counts;
+        }
+    }
+}
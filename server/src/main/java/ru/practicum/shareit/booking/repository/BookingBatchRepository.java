@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+//Вставка нескольких бронирований одним JDBC-батчем.
+//Идентификатор берется из значения по умолчанию колонки (последовательность bookings_id_seq),
+//Hibernate выделяет свои идентификаторы из той же последовательности, поэтому ключи не пересекаются.
+@Repository
+@RequiredArgsConstructor
+public class BookingBatchRepository {
+    private static final String INSERT_SQL = "INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //сгенерированные id проставляются в переданные бронирования в том же порядке
+    public void insertAll(List<Booking> bookings) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Booking booking = bookings.get(i);
+                        ps.setTimestamp(1, Timestamp.valueOf(booking.getStart()));
+                        ps.setTimestamp(2, Timestamp.valueOf(booking.getEnd()));
+                        ps.setLong(3, booking.getItem().getId());
+                        ps.setLong(4, booking.getBooker().getId());
+                        ps.setString(5, booking.getStatus().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return bookings.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < bookings.size(); i++) {
+            bookings.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.model.BookingEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long> {
+    //разбор outbox ведет один экземпляр сервера за раз: остальные пропускают заблокированную строку
+    //и не ждут ее. Возвращает последний выданный номер или пустой список, если строка занята
+    @Query(value = "SELECT last_position FROM booking_event_sequencer WHERE id = 1 FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockSequencer();
+
+    @Modifying
+    @Query(value = "UPDATE booking_event_sequencer SET last_position = :lastPosition WHERE id = 1",
+            nativeQuery = true)
+    void updateSequencer(@Param("lastPosition") long lastPosition);
+
+    List<BookingEvent> findFirst100ByPublishedIsNullOrderByIdAsc();
+
+    List<BookingEvent> findFirst100ByStreamPositionGreaterThanOrderByStreamPositionAsc(long streamPosition);
+
+    @Query("SELECT COALESCE(MAX(e.streamPosition), 0) FROM BookingEvent e")
+    long findLastStreamPosition();
+
+    List<BookingEvent> findAllByBookerIdAndStreamPositionBetweenOrderByStreamPositionAsc(long bookerId, long from,
+                                                                                         long to);
+
+    List<BookingEvent> findAllByOwnerIdAndStreamPositionBetweenOrderByStreamPositionAsc(long ownerId, long from,
+                                                                                        long to);
+
+    @Modifying
+    @Query("DELETE FROM BookingEvent e WHERE e.published < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
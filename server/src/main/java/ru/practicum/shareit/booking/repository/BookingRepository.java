@@ -1,15 +1,29 @@
 package ru.practicum.shareit.booking.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingEligibilityDto;
+import ru.practicum.shareit.booking.dto.BookingMomentCountDto;
+import ru.practicum.shareit.booking.dto.BookingTimelineDto;
+import ru.practicum.shareit.booking.dto.UserBookingTotalsDto;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface BookingRepository extends JpaRepository<Booking, Long>, QuerydslPredicateExecutor<Booking> {
+    //владелец вещи нужен для проверки доступа, счетчиков и событий, а удаление владельца и арендатора -
+    //для скрытия бронирования: они загружаются тем же запросом
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    Optional<Booking> findWithItemById(long bookingId);
+
     @Query("SELECT b from Booking b " +
             "WHERE b.item.id = :itemId " +
             "AND b.end >= :now " +
@@ -24,12 +38,67 @@ public interface BookingRepository extends JpaRepository<Booking, Long>, Queryds
             "LIMIT 1")
     Optional<Booking> findNextBooking(@Param("itemId") long itemId, @Param("now") LocalDateTime now);
 
-    @Query("SELECT COUNT(b) > 0 FROM Booking b " +
-            "WHERE b.status = 'APPROVED' " +
-            "AND b.booker.id = :bookerId " +
-            "AND b.item.id = :itemId " +
-            "AND b.end <= :now")
-    boolean existsFinishedBookingByBookerIdAndItemId(@Param("bookerId") long bookerId,
-                                                     @Param("itemId") long itemId,
-                                                     @Param("now") LocalDateTime now);
+    //итоги по арендаторам и владельцам для прогрева счетчиков: past - бронирования, закончившиеся до now
+    @Query("SELECT b.booker.id AS userId, COUNT(b) AS total, " +
+            "SUM(CASE WHEN b.status = 'WAITING' THEN 1 ELSE 0 END) AS waiting, " +
+            "SUM(CASE WHEN b.status = 'REJECTED' THEN 1 ELSE 0 END) AS rejected, " +
+            "SUM(CASE WHEN b.end < :now THEN 1 ELSE 0 END) AS past " +
+            "FROM Booking b " +
+            "GROUP BY b.booker.id")
+    List<UserBookingTotalsDto> countTotalsByBooker(@Param("now") LocalDateTime now);
+
+    @Query("SELECT b.item.owner.id AS userId, COUNT(b) AS total, " +
+            "SUM(CASE WHEN b.status = 'WAITING' THEN 1 ELSE 0 END) AS waiting, " +
+            "SUM(CASE WHEN b.status = 'REJECTED' THEN 1 ELSE 0 END) AS rejected, " +
+            "SUM(CASE WHEN b.end < :now THEN 1 ELSE 0 END) AS past " +
+            "FROM Booking b " +
+            "GROUP BY b.item.owner.id")
+    List<UserBookingTotalsDto> countTotalsByOwner(@Param("now") LocalDateTime now);
+
+    //даты начала еще не начавшихся и даты окончания еще не закончившихся бронирований
+    @Query("SELECT b.booker.id AS userId, b.start AS moment, COUNT(b) AS count " +
+            "FROM Booking b " +
+            "WHERE b.start > :now " +
+            "GROUP BY b.booker.id, b.start")
+    List<BookingMomentCountDto> countFutureStartsByBooker(@Param("now") LocalDateTime now);
+
+    @Query("SELECT b.item.owner.id AS userId, b.start AS moment, COUNT(b) AS count " +
+            "FROM Booking b " +
+            "WHERE b.start > :now " +
+            "GROUP BY b.item.owner.id, b.start")
+    List<BookingMomentCountDto> countFutureStartsByOwner(@Param("now") LocalDateTime now);
+
+    @Query("SELECT b.booker.id AS userId, b.end AS moment, COUNT(b) AS count " +
+            "FROM Booking b " +
+            "WHERE b.end >= :now " +
+            "GROUP BY b.booker.id, b.end")
+    List<BookingMomentCountDto> countOpenEndsByBooker(@Param("now") LocalDateTime now);
+
+    @Query("SELECT b.item.owner.id AS userId, b.end AS moment, COUNT(b) AS count " +
+            "FROM Booking b " +
+            "WHERE b.end >= :now " +
+            "GROUP BY b.item.owner.id, b.end")
+    List<BookingMomentCountDto> countOpenEndsByOwner(@Param("now") LocalDateTime now);
+
+    @Query("SELECT b.id AS id, b.booker.id AS bookerId, b.item.owner.id AS ownerId, " +
+            "b.start AS start, b.end AS end, b.status AS status " +
+            "FROM Booking b " +
+            "WHERE b.end < :end")
+    List<BookingTimelineDto> findAllTimelineEndedBefore(@Param("end") LocalDateTime end);
+
+    @Query("SELECT b.id AS id, b.booker.id AS bookerId, b.item.id AS itemId, b.end AS end " +
+            "FROM Booking b " +
+            "WHERE b.status = 'APPROVED'")
+    List<BookingEligibilityDto> findAllApprovedEligibility();
+
+    @Query("SELECT new ru.practicum.shareit.booking.model.ArchivedBooking(b.id, b.start, b.end, " +
+            "b.item.id, b.booker.id, b.item.owner.id, b.status) " +
+            "FROM Booking b " +
+            "WHERE b.start < :cutoff AND b.end < :cutoff " +
+            "ORDER BY b.id")
+    List<ArchivedBooking> findArchivable(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Booking b WHERE b.id IN :ids")
+    void deleteAllByIdIn(@Param("ids") List<Long> ids);
 }
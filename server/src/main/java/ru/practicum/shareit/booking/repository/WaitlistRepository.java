@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.model.WaitlistEntry;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    //первая запись очереди, период которой не пересекается с подтвержденными бронированиями вещи
+    @Query("SELECT w FROM WaitlistEntry w " +
+            "WHERE w.itemId = :itemId AND w.start > :now " +
+            "AND NOT EXISTS (SELECT b FROM Booking b " +
+            "WHERE b.item.id = w.itemId AND b.status = 'APPROVED' AND b.start < w.end AND b.end > w.start) " +
+            "ORDER BY w.id " +
+            "LIMIT 1")
+    Optional<WaitlistEntry> findFirstPromotable(@Param("itemId") long itemId, @Param("now") LocalDateTime now);
+
+    void deleteAllByItemIdAndStartLessThanEqual(long itemId, LocalDateTime now);
+
+    @Query("SELECT COUNT(w) > 0 FROM WaitlistEntry w " +
+            "WHERE w.itemId = :itemId AND w.bookerId = :bookerId AND w.start < :end AND w.end > :start")
+    boolean existsOverlapping(@Param("itemId") long itemId,
+                              @Param("bookerId") long bookerId,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end);
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.repository.BookingArchive;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+//Переносит бронирования, завершившиеся раньше срока хранения, из таблицы bookings в архив на диске.
+//Каждая пачка переносится в своей транзакции: сегмент пишется до удаления строк, и если транзакция
+//не зафиксируется, строки останутся в таблице, а при следующем запуске уже архивированные id
+//не будут записаны повторно и только удалятся из таблицы.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.archive.enabled", havingValue = "true")
+public class BookingArchiver {
+    private final BookingRepository bookingRepository;
+    private final BookingArchive bookingArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+
+    public BookingArchiver(BookingRepository bookingRepository,
+                           BookingArchive bookingArchive,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${shareit.booking.archive.retention:180d}") Duration retention,
+                           @Value("${shareit.booking.archive.batch-size:10000}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingArchive = bookingArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    //пачки переносятся, пока в таблице не останется бронирований старше срока хранения
+    @Scheduled(cron = "${shareit.booking.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long total = 0;
+        int archived;
+        do {
+            archived = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            total += archived;
+        } while (archived == batchSize);
+
+        if (total > 0) {
+            log.info("Архивировано {} бронирований, завершившихся до {}", total, cutoff);
+        }
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<ArchivedBooking> bookings = bookingRepository.findArchivable(cutoff, PageRequest.of(0, batchSize));
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+
+        bookingArchive.append(bookings);
+        bookingRepository.deleteAllByIdIn(bookings.stream().map(ArchivedBooking::getId).toList());
+        return bookings.size();
+    }
+}
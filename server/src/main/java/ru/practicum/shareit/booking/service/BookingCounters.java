@@ -0,0 +1,289 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingMomentCountDto;
+import ru.practicum.shareit.booking.dto.BookingStateCountsDto;
+import ru.practicum.shareit.booking.dto.BookingTimelineDto;
+import ru.practicum.shareit.booking.dto.UserBookingTotalsDto;
+import ru.practicum.shareit.booking.model.ArchivedBookingCounts;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingsPurgedEvent;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingArchive;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Счетчики бронирований по состояниям для каждого пользователя (как арендатора и как владельца вещей).
+//Обновляются из BookingServiceImpl в рамках транзакции и откатываются вместе с ней.
+//Удаленные при очистке данных пользователя бронирования вычитаются после коммита очистки.
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class BookingCounters implements SmartInitializingSingleton {
+    private final BookingRepository bookingRepository;
+    private final BookingArchive bookingArchive;
+
+    private final Map<Long, UserCounters> bookerCounters = new ConcurrentHashMap<>();
+    private final Map<Long, UserCounters> ownerCounters = new ConcurrentHashMap<>();
+
+    //счетчики заполняются до запуска веб-сервера: бронирование, созданное во время прогрева,
+    //попало бы и в итоги запросов, и в живое обновление
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp();
+    }
+
+    //при старте счетчики заполняются итогами группирующих запросов и итогами из индексов архива.
+    //Строки, которые уже есть в архиве, но не удалены из таблицы (перенос не зафиксировался), вычитаются:
+    //все они закончились раньше самого позднего архивного бронирования
+    public void warmUp() {
+        bookerCounters.clear();
+        ownerCounters.clear();
+        LocalDateTime now = LocalDateTime.now();
+        warmUp(bookerCounters, now, bookingRepository.countTotalsByBooker(now), bookingArchive.countByBookerId(),
+                bookingRepository.countFutureStartsByBooker(now), bookingRepository.countOpenEndsByBooker(now));
+        warmUp(ownerCounters, now, bookingRepository.countTotalsByOwner(now), bookingArchive.countByOwnerId(),
+                bookingRepository.countFutureStartsByOwner(now), bookingRepository.countOpenEndsByOwner(now));
+
+        bookingArchive.findLatestEnd().ifPresent(latestEnd -> {
+            for (BookingTimelineDto booking : bookingRepository.findAllTimelineEndedBefore(latestEnd)) {
+                if (bookingArchive.contains(booking.getId())) {
+                    remove(booking.getBookerId(), booking.getOwnerId(), booking.getStart(), booking.getEnd(),
+                            booking.getStatus());
+                }
+            }
+        });
+        log.info("Счетчики бронирований заполнены: {} арендаторов, {} владельцев", bookerCounters.size(),
+                ownerCounters.size());
+    }
+
+    public void registerCreated(Booking booking) {
+        long bookerId = booking.getBooker().getId();
+        long ownerId = booking.getItem().getOwner().getId();
+        LocalDateTime start = booking.getStart();
+        LocalDateTime end = booking.getEnd();
+        Status status = booking.getStatus();
+
+        add(bookerId, ownerId, start, end, status);
+        onRollback(() -> remove(bookerId, ownerId, start, end, status));
+    }
+
+    public void registerStatusChanged(Booking booking, Status oldStatus) {
+        Status newStatus = booking.getStatus();
+        if (oldStatus == newStatus) {
+            return;
+        }
+
+        long bookerId = booking.getBooker().getId();
+        long ownerId = booking.getItem().getOwner().getId();
+
+        changeStatus(bookerId, ownerId, oldStatus, newStatus);
+        onRollback(() -> changeStatus(bookerId, ownerId, newStatus, oldStatus));
+    }
+
+    @EventListener
+    public void onBookingsPurged(BookingsPurgedEvent event) {
+        afterCommit(() -> event.bookings().forEach(booking -> remove(booking.getBookerId(), booking.getOwnerId(),
+                booking.getStart(), booking.getEnd(), booking.getStatus())));
+    }
+
+    public BookingStateCountsDto getBookerCounts(long userId, LocalDateTime now) {
+        return bookerCounters.getOrDefault(userId, new UserCounters()).toDto(now);
+    }
+
+    public BookingStateCountsDto getOwnerCounts(long userId, LocalDateTime now) {
+        return ownerCounters.getOrDefault(userId, new UserCounters()).toDto(now);
+    }
+
+    private void add(long bookerId, long ownerId, LocalDateTime start, LocalDateTime end, Status status) {
+        bookerCounters.computeIfAbsent(bookerId, key -> new UserCounters()).add(start, end, status);
+        ownerCounters.computeIfAbsent(ownerId, key -> new UserCounters()).add(start, end, status);
+    }
+
+    //счетчики пользователя, у которого не осталось бронирований, убираются
+    private void remove(long bookerId, long ownerId, LocalDateTime start, LocalDateTime end, Status status) {
+        bookerCounters.computeIfPresent(bookerId, (key, counters) -> counters.remove(start, end, status));
+        ownerCounters.computeIfPresent(ownerId, (key, counters) -> counters.remove(start, end, status));
+    }
+
+    private void changeStatus(long bookerId, long ownerId, Status oldStatus, Status newStatus) {
+        bookerCounters.computeIfAbsent(bookerId, key -> new UserCounters()).changeStatus(oldStatus, newStatus);
+        ownerCounters.computeIfAbsent(ownerId, key -> new UserCounters()).changeStatus(oldStatus, newStatus);
+    }
+
+    private static void warmUp(Map<Long, UserCounters> counters, LocalDateTime now,
+                               List<UserBookingTotalsDto> totals, List<ArchivedBookingCounts> archived,
+                               List<BookingMomentCountDto> futureStarts, List<BookingMomentCountDto> openEnds) {
+        for (UserBookingTotalsDto total : totals) {
+            counters.computeIfAbsent(total.getUserId(), key -> new UserCounters(now))
+                    .addTotals(total.getTotal(), total.getPast(), total.getWaiting(), total.getRejected());
+        }
+        for (ArchivedBookingCounts total : archived) {
+            counters.computeIfAbsent(total.getUserId(), key -> new UserCounters(now))
+                    .addTotals(total.getTotal(), total.getTotal(), total.getWaiting(), total.getRejected());
+        }
+        for (BookingMomentCountDto start : futureStarts) {
+            counters.computeIfAbsent(start.getUserId(), key -> new UserCounters(now))
+                    .addFutureStarts(start.getMoment(), start.getCount());
+        }
+        for (BookingMomentCountDto end : openEnds) {
+            counters.computeIfAbsent(end.getUserId(), key -> new UserCounters(now))
+                    .addOpenEnds(end.getMoment(), end.getCount());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    //изменения применяются сразу, а при откате транзакции отменяются
+    private void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    //Счетчики одного пользователя. Временные состояния (CURRENT/PAST/FUTURE) считаются по датам начала
+    //еще не начавшихся и датам окончания еще не закончившихся бронирований (с числом бронирований на дату).
+    //При чтении даты, которые уже прошли, снимаются с начала карт в счетчики future и past,
+    //поэтому в картах остаются только будущие даты, а добавление и удаление стоят O(log n).
+    //Моменты чтения не убывают: чтение с более ранним now видит состояния на момент последнего чтения.
+    private static class UserCounters {
+        private final NavigableMap<LocalDateTime, Long> futureStarts = new TreeMap<>();
+        private final NavigableMap<LocalDateTime, Long> openEnds = new TreeMap<>();
+        //начала не позже watermark и окончания раньше watermark уже сняты с карт
+        private LocalDateTime watermark;
+        private long all;
+        private long future;
+        private long past;
+        private long waiting;
+        private long rejected;
+
+        UserCounters() {
+            this(LocalDateTime.MIN);
+        }
+
+        UserCounters(LocalDateTime watermark) {
+            this.watermark = watermark;
+        }
+
+        synchronized void addTotals(long all, long past, long waiting, long rejected) {
+            this.all += all;
+            this.past += past;
+            this.waiting += waiting;
+            this.rejected += rejected;
+        }
+
+        synchronized void addFutureStarts(LocalDateTime start, long count) {
+            futureStarts.merge(start, count, Long::sum);
+            future += count;
+        }
+
+        synchronized void addOpenEnds(LocalDateTime end, long count) {
+            openEnds.merge(end, count, Long::sum);
+        }
+
+        synchronized void add(LocalDateTime start, LocalDateTime end, Status status) {
+            all++;
+            if (start.isAfter(watermark)) {
+                addFutureStarts(start, 1);
+            }
+            if (end.isBefore(watermark)) {
+                past++;
+            } else {
+                addOpenEnds(end, 1);
+            }
+            changeStatusCount(status, 1);
+        }
+
+        //возвращает null, если бронирований не осталось
+        synchronized UserCounters remove(LocalDateTime start, LocalDateTime end, Status status) {
+            all--;
+            if (start.isAfter(watermark)) {
+                decrement(futureStarts, start);
+                future--;
+            }
+            if (end.isBefore(watermark)) {
+                past--;
+            } else {
+                decrement(openEnds, end);
+            }
+            changeStatusCount(status, -1);
+            return all == 0 ? null : this;
+        }
+
+        synchronized void changeStatus(Status oldStatus, Status newStatus) {
+            changeStatusCount(oldStatus, -1);
+            changeStatusCount(newStatus, 1);
+        }
+
+        synchronized BookingStateCountsDto toDto(LocalDateTime now) {
+            advance(now);
+
+            BookingStateCountsDto dto = new BookingStateCountsDto();
+            dto.setAll(all);
+            dto.setFuture(future);
+            dto.setPast(past);
+            dto.setCurrent(all - future - past);
+            dto.setWaiting(waiting);
+            dto.setRejected(rejected);
+            return dto;
+        }
+
+        //бронирования, начавшиеся не позже now, перестают быть будущими, закончившиеся до now - становятся прошлыми
+        private void advance(LocalDateTime now) {
+            if (!now.isAfter(watermark)) {
+                return;
+            }
+            while (!futureStarts.isEmpty() && !futureStarts.firstKey().isAfter(now)) {
+                future -= futureStarts.pollFirstEntry().getValue();
+            }
+            while (!openEnds.isEmpty() && openEnds.firstKey().isBefore(now)) {
+                past += openEnds.pollFirstEntry().getValue();
+            }
+            watermark = now;
+        }
+
+        private void changeStatusCount(Status status, int delta) {
+            switch (status) {
+                case WAITING -> waiting += delta;
+                case REJECTED -> rejected += delta;
+                default -> {
+                }
+            }
+        }
+
+        private static void decrement(NavigableMap<LocalDateTime, Long> counts, LocalDateTime moment) {
+            counts.computeIfPresent(moment, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+}
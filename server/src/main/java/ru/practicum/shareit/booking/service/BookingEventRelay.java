@@ -0,0 +1,261 @@
+package ru.practicum.shareit.booking.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.BookingEvent;
+import ru.practicum.shareit.booking.repository.BookingEventRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Публикует события из outbox-таблицы booking_events подписчикам Server-Sent Events.
+//Событие получают арендатор и владелец вещи. Публикация идет в два шага.
+//Разбор: один экземпляр сервера за раз выдает неопубликованным событиям время публикации и сквозной номер.
+//Разбор сериализован блокировкой booking_event_sequencer, поэтому номера становятся видны в порядке коммита.
+//Рассылка: каждый экземпляр читает события после своего курсора по номеру и ставит их в очереди своих подписчиков,
+//так что событие получают подписчики всех экземпляров. Номер служит id события SSE: подписчик,
+//переподключившийся с заголовком Last-Event-ID, получает пропущенные события из таблицы.
+//Опубликованные события хранятся в течение срока хранения.
+//Очереди подписчиков ограничены и разбираются отдельным пулом потоков, как в RequestEventBroadcaster:
+//медленный клиент не задерживает общий поток задач @Scheduled.
+@Slf4j
+@Component
+public class BookingEventRelay implements SmartInitializingSingleton {
+    private static final String EVENT_NAME = "booking";
+    private static final int BATCH_SIZE = 100;
+
+    private final BookingEventRepository bookingEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long timeoutMillis;
+    private final Duration retention;
+    private final int bufferSize;
+    private final ExecutorService executor;
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    //под этой блокировкой сдвигается курсор рассылки и регистрируются подписчики
+    private final Object deliveryLock = new Object();
+    private long cursor;
+
+    public BookingEventRelay(BookingEventRepository bookingEventRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${shareit.booking.events.timeout:30m}") Duration timeout,
+                             @Value("${shareit.booking.events.retention:24h}") Duration retention,
+                             @Value("${shareit.booking.events.buffer-size:64}") int bufferSize,
+                             @Value("${shareit.booking.events.send-threads:8}") int sendThreads) {
+        this.bookingEventRepository = bookingEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeoutMillis = timeout.toMillis();
+        this.retention = retention;
+        this.bufferSize = bufferSize;
+        this.executor = Executors.newFixedThreadPool(sendThreads, new CustomizableThreadFactory("booking-events-"));
+    }
+
+    //события, разобранные до старта экземпляра, его подписчики получают только повтором
+    @Override
+    public void afterSingletonsInstantiated() {
+        synchronized (deliveryLock) {
+            cursor = bookingEventRepository.findLastStreamPosition();
+        }
+    }
+
+    //повтор берет события до курсора, рассылка - после него, а подписчик регистрируется под той же блокировкой,
+    //поэтому между повтором и живым потоком ничего не теряется и не дублируется
+    public SseEmitter subscribe(long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        synchronized (deliveryLock) {
+            Collection<BookingEvent> missed = lastEventId == null ? List.of() : findMissed(userId, lastEventId);
+            //повтор не должен переполнить очередь, поэтому она больше на его длину
+            Subscriber subscriber = new Subscriber(userId, emitter,
+                    new ArrayBlockingQueue<>(bufferSize + missed.size()));
+
+            emitter.onCompletion(() -> unsubscribe(subscriber));
+            emitter.onTimeout(() -> unsubscribe(subscriber));
+            emitter.onError(e -> unsubscribe(subscriber));
+
+            subscribers.computeIfAbsent(userId, key -> new CopyOnWriteArrayList<>()).add(subscriber);
+            missed.forEach(event -> enqueue(subscriber, toSseEvent(event)));
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.events.poll-interval-ms:500}")
+    public void publish() {
+        Integer claimed = transactionTemplate.execute(status -> claim());
+        if (claimed != null && claimed > 0) {
+            log.debug("Разобрано {} событий бронирований", claimed);
+        }
+        deliver();
+    }
+
+    @Transactional
+    @Scheduled(cron = "${shareit.booking.events.cleanup-cron:0 15 * * * *}")
+    public void deleteExpired() {
+        int deleted = bookingEventRepository.deletePublishedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Удалено {} опубликованных событий бронирований старше срока хранения", deleted);
+        }
+    }
+
+    //комментарий раз в интервал не дает прокси закрыть простаивающее соединение и выявляет отключившихся клиентов
+    @Scheduled(fixedRateString = "${shareit.booking.events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        synchronized (deliveryLock) {
+            subscribers.values().forEach(userSubscribers -> userSubscribers
+                    .forEach(subscriber -> enqueue(subscriber, SseEmitter.event().comment("ping"))));
+            subscribers.values().removeIf(List::isEmpty);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    //пока другой экземпляр держит строку booking_event_sequencer, этот разбор пропускает
+    private int claim() {
+        List<Long> lastPosition = bookingEventRepository.lockSequencer();
+        if (lastPosition.isEmpty()) {
+            return 0;
+        }
+        List<BookingEvent> events = bookingEventRepository.findFirst100ByPublishedIsNullOrderByIdAsc();
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        long position = lastPosition.getFirst();
+        LocalDateTime now = LocalDateTime.now();
+        for (BookingEvent event : events) {
+            event.setStreamPosition(++position);
+            event.setPublished(now);
+        }
+        bookingEventRepository.updateSequencer(position);
+        return events.size();
+    }
+
+    private void deliver() {
+        synchronized (deliveryLock) {
+            List<BookingEvent> events;
+            do {
+                events = bookingEventRepository.findFirst100ByStreamPositionGreaterThanOrderByStreamPositionAsc(
+                        cursor);
+                for (BookingEvent event : events) {
+                    send(event.getBookerId(), event);
+                    if (event.getOwnerId() != event.getBookerId()) {
+                        send(event.getOwnerId(), event);
+                    }
+                    cursor = event.getStreamPosition();
+                }
+            } while (events.size() == BATCH_SIZE);
+        }
+    }
+
+    private Collection<BookingEvent> findMissed(long userId, long lastEventId) {
+        Map<Long, BookingEvent> missed = new TreeMap<>();
+        bookingEventRepository.findAllByBookerIdAndStreamPositionBetweenOrderByStreamPositionAsc(userId,
+                        lastEventId + 1, cursor)
+                .forEach(event -> missed.put(event.getStreamPosition(), event));
+        bookingEventRepository.findAllByOwnerIdAndStreamPositionBetweenOrderByStreamPositionAsc(userId,
+                        lastEventId + 1, cursor)
+                .forEach(event -> missed.put(event.getStreamPosition(), event));
+        return missed.values();
+    }
+
+    private void send(long userId, BookingEvent event) {
+        List<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            enqueue(subscriber, toSseEvent(event));
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toSseEvent(BookingEvent event) {
+        return SseEmitter.event()
+                .id(String.valueOf(event.getStreamPosition()))
+                .name(EVENT_NAME)
+                .data(BookingMapper.toBookingEventDto(event));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        List<Subscriber> userSubscribers = subscribers.get(subscriber.userId());
+        if (userSubscribers != null) {
+            userSubscribers.remove(subscriber);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.buffer().offer(event)) {
+            log.debug("Подписчик {} не успевает получать события бронирований, отключаем", subscriber.userId());
+            disconnect(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    //отправка может блокироваться на медленном клиенте, поэтому закрывает соединение тот же поток,
+    //что отправляет: он сделает это, как только текущая отправка завершится
+    private void disconnect(Subscriber subscriber) {
+        unsubscribe(subscriber);
+        subscriber.closed().set(true);
+        subscriber.buffer().clear();
+        scheduleDrain(subscriber);
+    }
+
+    //у подписчика не больше одного отправляющего потока, поэтому события уходят в порядке номеров
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining().compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed().get() && (event = subscriber.buffer().poll()) != null) {
+                try {
+                    subscriber.emitter().send(event);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Подписчик {} отключился: {}", subscriber.userId(), e.getMessage());
+                    unsubscribe(subscriber);
+                    subscriber.closed().set(true);
+                }
+            }
+            if (subscriber.closed().get()) {
+                subscriber.buffer().clear();
+                subscriber.emitter().complete();
+                return;
+            }
+            subscriber.draining().set(false);
+            //событие могло прийти между последним poll и сбросом флага
+        } while (!subscriber.buffer().isEmpty() && subscriber.draining().compareAndSet(false, true));
+    }
+
+    private record Subscriber(long userId, SseEmitter emitter, BlockingQueue<SseEmitter.SseEventBuilder> buffer,
+                              AtomicBoolean draining, AtomicBoolean closed) {
+        Subscriber(long userId, SseEmitter emitter, BlockingQueue<SseEmitter.SseEventBuilder> buffer) {
+            this(userId, emitter, buffer, new AtomicBoolean(), new AtomicBoolean());
+        }
+    }
+}
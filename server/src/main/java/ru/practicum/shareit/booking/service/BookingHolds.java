@@ -0,0 +1,204 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
+import ru.practicum.shareit.user.model.UserPurgedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+//Временные удержания вещей на время оформления бронирования.
+//Хранятся в памяти: удержания индексируются по id вещи и по id пользователя, истечение срока - через колесо таймеров.
+//Пересечение периодов проверяется перебором удержаний одной вещи: их не больше, чем непересекающихся периодов,
+//которые успели удержать за время жизни удержания. Снятие удержания из любого индекса - за константу.
+@Slf4j
+@Component
+public class BookingHolds {
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    private final long ttlMillis;
+    private final Map<Long, Set<Hold>> holdsByItem = new HashMap<>();
+    private final Map<Long, Set<Hold>> holdsByBooker = new HashMap<>();
+    //срок удержания одинаков, поэтому в ячейке колеса удержания лежат в порядке истечения
+    private final List<Set<Hold>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private long lastTick;
+
+    public BookingHolds(@Value("${shareit.booking.hold-ttl:5m}") Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new LinkedHashSet<>());
+        }
+        this.lastTick = System.currentTimeMillis() / TICK_MILLIS;
+    }
+
+    //повторный запрос того же пользователя (например, ретрай шлюза) возвращает уже существующее удержание,
+    //а его удержания на пересекающиеся периоды заменяются новым
+    public synchronized Optional<BookingHoldDto> hold(long itemId, long bookerId,
+                                                      LocalDateTime start, LocalDateTime end) {
+        long now = System.currentTimeMillis();
+        List<Hold> overlapping = findActive(itemId, now).stream()
+                .filter(hold -> hold.overlaps(start, end))
+                .toList();
+
+        for (Hold existing : overlapping) {
+            if (existing.bookerId != bookerId) {
+                return Optional.empty();
+            }
+        }
+        for (Hold existing : overlapping) {
+            if (existing.start.equals(start) && existing.end.equals(end)) {
+                return Optional.of(existing.toDto());
+            }
+        }
+        overlapping.forEach(this::remove);
+
+        Hold hold = new Hold(itemId, bookerId, start, end, now + ttlMillis);
+        holdsByItem.computeIfAbsent(itemId, id -> new LinkedHashSet<>()).add(hold);
+        holdsByBooker.computeIfAbsent(bookerId, id -> new LinkedHashSet<>()).add(hold);
+        wheel.get(slot(hold.deadlineTick())).add(hold);
+        return Optional.of(hold.toDto());
+    }
+
+    //удержание другого пользователя, пересекающееся с указанным периодом, блокирует бронирование
+    public synchronized boolean isHeldByOther(long itemId, long bookerId, LocalDateTime start, LocalDateTime end) {
+        return findActive(itemId, System.currentTimeMillis()).stream()
+                .anyMatch(hold -> hold.bookerId != bookerId && hold.overlaps(start, end));
+    }
+
+    //снимает все удержания вещи пользователем
+    public synchronized void release(long itemId, long bookerId) {
+        findActive(itemId, System.currentTimeMillis()).stream()
+                .filter(hold -> hold.bookerId == bookerId)
+                .toList()
+                .forEach(this::remove);
+    }
+
+    //снимает удержания пользователя, пересекающиеся с забронированным периодом
+    public synchronized void release(long itemId, long bookerId, LocalDateTime start, LocalDateTime end) {
+        findActive(itemId, System.currentTimeMillis()).stream()
+                .filter(hold -> hold.bookerId == bookerId && hold.overlaps(start, end))
+                .toList()
+                .forEach(this::remove);
+    }
+
+    //удержание снимается только после коммита бронирования: при откате оно продолжает защищать вещь
+    public void releaseAfterCommit(long itemId, long bookerId, LocalDateTime start, LocalDateTime end) {
+        afterCommit(() -> release(itemId, bookerId, start, end));
+    }
+
+    //удержания вещей удаленного владельца истекают сами: вещей уже нет, забронировать их нельзя
+    @EventListener
+    public void onUserPurged(UserPurgedEvent event) {
+        afterCommit(() -> releaseAll(event.userId()));
+    }
+
+    //снимает все удержания пользователя
+    public synchronized void releaseAll(long bookerId) {
+        List.copyOf(holdsByBooker.getOrDefault(bookerId, Set.of())).forEach(this::remove);
+    }
+
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public synchronized void expire() {
+        long currentTick = System.currentTimeMillis() / TICK_MILLIS;
+        //за один проход достаточно обойти колесо целиком, даже если тики были пропущены
+        long fromTick = Math.max(lastTick + 1, currentTick - WHEEL_SIZE + 1);
+
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            Iterator<Hold> iterator = wheel.get(slot(tick)).iterator();
+            while (iterator.hasNext()) {
+                Hold hold = iterator.next();
+                //дальше в ячейке только удержания следующих оборотов колеса
+                if (hold.deadlineTick() > currentTick) {
+                    break;
+                }
+                iterator.remove();
+                removeFromIndexes(hold);
+                log.debug("Истекло удержание вещи {} пользователем {}", hold.itemId, hold.bookerId);
+            }
+        }
+        lastTick = currentTick;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Set<Hold> findActive(long itemId, long now) {
+        Set<Hold> itemHolds = holdsByItem.get(itemId);
+        if (itemHolds == null) {
+            return Set.of();
+        }
+        itemHolds.stream()
+                .filter(hold -> hold.expiresAtMillis <= now)
+                .toList()
+                .forEach(this::remove);
+        return holdsByItem.getOrDefault(itemId, Set.of());
+    }
+
+    private void remove(Hold hold) {
+        removeFromIndexes(hold);
+        wheel.get(slot(hold.deadlineTick())).remove(hold);
+    }
+
+    private void removeFromIndexes(Hold hold) {
+        removeFrom(holdsByItem, hold.itemId, hold);
+        removeFrom(holdsByBooker, hold.bookerId, hold);
+    }
+
+    private static void removeFrom(Map<Long, Set<Hold>> index, long key, Hold hold) {
+        Set<Hold> indexed = index.get(key);
+        if (indexed != null && indexed.remove(hold) && indexed.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static int slot(long tick) {
+        return (int) (tick % WHEEL_SIZE);
+    }
+
+    private record Hold(long itemId, long bookerId, LocalDateTime start, LocalDateTime end, long expiresAtMillis) {
+        boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+            return start.isBefore(otherEnd) && otherStart.isBefore(end);
+        }
+
+        long deadlineTick() {
+            return (expiresAtMillis + TICK_MILLIS - 1) / TICK_MILLIS;
+        }
+
+        BookingHoldDto toDto() {
+            BookingHoldDto dto = new BookingHoldDto();
+            dto.setItemId(itemId);
+            dto.setBookerId(bookerId);
+            dto.setStart(start);
+            dto.setEnd(end);
+            dto.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault()));
+            return dto;
+        }
+    }
+}
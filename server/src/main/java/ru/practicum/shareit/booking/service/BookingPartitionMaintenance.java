@@ -0,0 +1,168 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+//Обслуживание месячных секций таблицы bookings (PostgreSQL):
+//заранее создает секции на ближайшие месяцы и удаляет секции старше срока хранения, когда архивация их опустошила.
+//Строки месяца, попавшие в секцию по умолчанию (бронирование дальше горизонта), переносятся в новую секцию,
+//когда месяц входит в горизонт. Прошедшие месяцы без секции (например, данные до секционирования) ищутся
+//в секции по умолчанию по индексу ix_bookings_default_start_date и получают секции так же.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.partitioning.enabled", havingValue = "true")
+public class BookingPartitionMaintenance {
+    private static final String PARTITION_PREFIX = "bookings_p";
+    private static final String DEFAULT_PARTITION = "bookings_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final long lockTimeoutMillis;
+
+    public BookingPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${shareit.booking.partitioning.months-ahead:3}") int monthsAhead,
+                                       @Value("${shareit.booking.partitioning.retention-months:24}") int retentionMonths,
+                                       @Value("${shareit.booking.partitioning.lock-timeout:5s}")
+                                       Duration lockTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.lockTimeoutMillis = lockTimeout.toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${shareit.booking.partitioning.cron:0 0 3 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        Set<String> existing = new HashSet<>(findMonthlyPartitions());
+
+        Set<YearMonth> months = new TreeSet<>(findDefaultPartitionMonthsBefore(current.minusMonths(1)));
+        for (int i = -1; i <= monthsAhead; i++) {
+            months.add(current.plusMonths(i));
+        }
+        for (YearMonth month : months) {
+            if (!existing.contains(partitionName(month))) {
+                createPartition(month);
+            }
+        }
+
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : existing) {
+            YearMonth month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            if (month.isBefore(oldestKept)) {
+                dropArchivedPartition(partition);
+            }
+        }
+    }
+
+    //строки месяца из секции по умолчанию переносятся в новую секцию в одной транзакции с ее подключением:
+    //пока секция по умолчанию заблокирована, новые бронирования этого месяца в нее не попадут.
+    //Блокировка ACCESS EXCLUSIVE держится до конца переноса и закрывает чтение и запись секции по умолчанию,
+    //поэтому в транзакции переносится только один месяц. Для месяца на границе горизонта это бронирования,
+    //сделанные больше чем за monthsAhead месяцев, их немного. Дольше всего блокировка держится при первом переносе
+    //данных, записанных до секционирования: его стоит запускать в часы наименьшей нагрузки.
+    //Ожидание блокировки ограничено lock_timeout: пока перенос ждет, за ним в очереди стоят все запросы к секции.
+    //Не дождавшись блокировки, перенос откладывается до следующего запуска.
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        String range = "start_date >= " + from + " AND start_date < " + to;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+                jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN ACCESS EXCLUSIVE MODE");
+                jdbcTemplate.execute("CREATE TABLE " + name +
+                        " (LIKE bookings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                int moved = jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM " + DEFAULT_PARTITION +
+                        " WHERE " + range);
+                if (moved > 0) {
+                    jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range);
+                    log.info("Из секции по умолчанию в секцию {} перенесено {} бронирований", name, moved);
+                }
+                jdbcTemplate.execute("ALTER TABLE bookings ATTACH PARTITION " + name +
+                        " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+            });
+        } catch (DataAccessException e) {
+            log.warn("Не удалось создать секцию {}: {}", name, e.getMessage());
+        }
+    }
+
+    //строки старых секций переносит в архив BookingArchiver; непустая секция остается подключенной,
+    //иначе ее бронирования пропали бы из чтения
+    private void dropArchivedPartition(String name) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+                jdbcTemplate.execute("LOCK TABLE " + name + " IN ACCESS EXCLUSIVE MODE");
+                Boolean empty = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM " + name + ")",
+                        Boolean.class);
+                if (!Boolean.TRUE.equals(empty)) {
+                    log.warn("Секция {} старше срока хранения, но в ней остались неархивированные бронирования", name);
+                    return;
+                }
+                jdbcTemplate.execute("ALTER TABLE bookings DETACH PARTITION " + name);
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Пустая секция {} отсоединена от таблицы bookings и удалена", name);
+            });
+        } catch (DataAccessException e) {
+            log.warn("Не удалось отсоединить секцию {}: {}", name, e.getMessage());
+        }
+    }
+
+    //секции таблицы bookings из схемы, найденной по search_path
+    private List<String> findMonthlyPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'bookings'::regclass AND c.relname ~ '^bookings_p[0-9]{6}$'",
+                String.class);
+    }
+
+    //месяцы до before, строки которых лежат в секции по умолчанию. Вместо DISTINCT по всей секции запрос
+    //перескакивает от месяца к месяцу: каждый шаг - MIN(start_date) по индексу после начала следующего месяца
+    private List<YearMonth> findDefaultPartitionMonthsBefore(YearMonth before) {
+        LocalDateTime end = before.atDay(1).atStartOfDay();
+        return jdbcTemplate.queryForList("WITH RECURSIVE months (month_start) AS (" +
+                                "SELECT date_trunc('month', MIN(start_date)) FROM " + DEFAULT_PARTITION +
+                                " WHERE start_date < ? " +
+                                "UNION ALL " +
+                                "SELECT (SELECT date_trunc('month', MIN(b.start_date)) FROM " + DEFAULT_PARTITION +
+                                " b WHERE b.start_date >= m.month_start + INTERVAL '1 month' AND b.start_date < ?) " +
+                                "FROM months m WHERE m.month_start IS NOT NULL) " +
+                                "SELECT to_char(month_start, 'YYYYMM') FROM months WHERE month_start IS NOT NULL",
+                        String.class, end, end).stream()
+                .map(month -> YearMonth.parse(month, PARTITION_SUFFIX))
+                .toList();
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
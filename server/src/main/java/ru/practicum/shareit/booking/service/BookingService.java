@@ -1,7 +1,12 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingCartDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
 
 import java.util.List;
 
@@ -9,6 +14,18 @@ public interface BookingService {
 
     ResponseBookingDto create(long userId, BookingDto bookingDto);
 
+    List<ResponseBookingDto> createBatch(long userId, BookingCartDto bookingCartDto);
+
+    BookingHoldDto hold(long userId, BookingHoldDto bookingHoldDto);
+
+    void releaseHold(long userId, long itemId);
+
+    SseEmitter subscribe(long userId, Long lastEventId);
+
+    WaitlistEntryDto joinWaitlist(long userId, WaitlistEntryDto waitlistEntryDto);
+
+    void leaveWaitlist(long userId, long entryId);
+
     ResponseBookingDto update(long userId, long bookingId, boolean approved);
 
     ResponseBookingDto get(long userId, long bookingId);
@@ -16,4 +33,6 @@ public interface BookingService {
     List<ResponseBookingDto> getUserBookings(long userId, String state);
 
     List<ResponseBookingDto> getUserItemsBookings(long userId, String state);
+
+    BookingCountsDto getCounts(long userId);
 }
@@ -5,16 +5,30 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingCartDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEvent;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.QBooking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.model.WaitlistEntry;
+import ru.practicum.shareit.booking.repository.BookingArchive;
+import ru.practicum.shareit.booking.repository.BookingBatchRepository;
+import ru.practicum.shareit.booking.repository.BookingEventRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.WaitlistRepository;
 import ru.practicum.shareit.common.exceptions.*;
+import ru.practicum.shareit.item.dto.ShortItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.service.ItemService;
@@ -25,7 +39,15 @@ import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -37,11 +59,18 @@ public class BookingServiceImpl implements BookingService {
     private final ItemService itemService;
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
+    private final BookingCounters bookingCounters;
+    private final BookingHolds bookingHolds;
+    private final WaitlistRepository waitlistRepository;
+    private final BookingArchive bookingArchive;
+    private final BookingEventRepository bookingEventRepository;
+    private final BookingEventRelay bookingEventRelay;
+    private final BookingBatchRepository bookingBatchRepository;
 
     @Transactional
     @Override
     public ResponseBookingDto create(long userId, BookingDto bookingDto) {
-        checkBookingDates(bookingDto);
+        checkBookingDates(bookingDto.getStart(), bookingDto.getEnd());
 
         long itemId = bookingDto.getItemId();
 
@@ -56,27 +85,169 @@ public class BookingServiceImpl implements BookingService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь " + userId + " не найден"));
 
+        if (bookingHolds.isHeldByOther(itemId, userId, bookingDto.getStart(), bookingDto.getEnd())) {
+            log.warn("Вещь {} временно удерживается другим пользователем", itemId);
+            throw new ValidationException("Вещь " + itemId + " временно удерживается другим пользователем");
+        }
+
         bookingDto.setStatus(Status.WAITING.name());
         Booking booking = BookingMapper.toBooking(bookingDto, item, user);
         booking = bookingRepository.save(booking);
+        bookingCounters.registerCreated(booking);
+        bookingEventRepository.save(BookingMapper.toBookingEvent(booking));
+        bookingHolds.releaseAfterCommit(itemId, userId, booking.getStart(), booking.getEnd());
 
         return BookingMapper.toResponseBookingDto(booking,
                 itemRepository.findShortItemDtoById(itemId),
                 userRepository.findShortUserDtoById(userId));
     }
 
+    //все бронирования корзины создаются в одной транзакции: ошибка в любом из них отменяет все
+    @Transactional
+    @Override
+    public List<ResponseBookingDto> createBatch(long userId, BookingCartDto bookingCartDto) {
+        List<BookingDto> bookingDtos = bookingCartDto.getBookings();
+        if (bookingDtos == null || bookingDtos.isEmpty()) {
+            throw new ValidationException("Корзина бронирований пуста");
+        }
+
+        for (BookingDto bookingDto : bookingDtos) {
+            checkBookingDates(bookingDto.getStart(), bookingDto.getEnd());
+        }
+        checkCartOverlaps(bookingDtos);
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь " + userId + " не найден"));
+
+        Set<Long> itemIds = bookingDtos.stream().map(BookingDto::getItemId).collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<Booking> bookings = new ArrayList<>(bookingDtos.size());
+        for (BookingDto bookingDto : bookingDtos) {
+            long itemId = bookingDto.getItemId();
+            Item item = items.get(itemId);
+
+            if (item == null) {
+                throw new NotFoundException("Вещь " + itemId + " не найдена");
+            }
+            if (!item.isAvailable()) {
+                log.warn("Вещь не доступна для бронирования");
+                throw new InternalServerException("Вещь " + itemId + " не доступна для бронирования");
+            }
+            if (bookingHolds.isHeldByOther(itemId, userId, bookingDto.getStart(), bookingDto.getEnd())) {
+                log.warn("Вещь {} временно удерживается другим пользователем", itemId);
+                throw new ValidationException("Вещь " + itemId + " временно удерживается другим пользователем");
+            }
+
+            bookingDto.setStatus(Status.WAITING.name());
+            bookings.add(BookingMapper.toBooking(bookingDto, item, user));
+        }
+
+        bookingBatchRepository.insertAll(bookings);
+
+        List<BookingEvent> events = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            bookingCounters.registerCreated(booking);
+            events.add(BookingMapper.toBookingEvent(booking));
+            bookingHolds.releaseAfterCommit(booking.getItem().getId(), userId, booking.getStart(), booking.getEnd());
+        }
+        bookingEventRepository.saveAll(events);
+
+        Map<Long, ShortItemDto> shortItems = itemRepository.findShortItemDtosByIdIn(itemIds).stream()
+                .collect(Collectors.toMap(ShortItemDto::getId, Function.identity()));
+        ShortUserDto shortUserDto = userRepository.findShortUserDtoById(userId);
+
+        return bookings.stream()
+                .map(booking -> BookingMapper.toResponseBookingDto(booking,
+                        shortItems.get(booking.getItem().getId()), shortUserDto))
+                .toList();
+    }
+
+    @Override
+    public BookingHoldDto hold(long userId, BookingHoldDto bookingHoldDto) {
+        checkBookingDates(bookingHoldDto.getStart(), bookingHoldDto.getEnd());
+        userService.checkUserExist(userId);
+
+        long itemId = bookingHoldDto.getItemId();
+
+        Item item = itemRepository.findById(itemId)
+                .orElseThrow(() -> new NotFoundException("Вещь " + itemId + " не найдена"));
+
+        if (!item.isAvailable()) {
+            log.warn("Вещь не доступна для бронирования");
+            throw new InternalServerException("Вещь " + itemId + " не доступна для бронирования");
+        }
+
+        return bookingHolds.hold(itemId, userId, bookingHoldDto.getStart(), bookingHoldDto.getEnd())
+                .orElseThrow(() -> {
+                    log.warn("Вещь {} уже удерживается другим пользователем", itemId);
+                    return new ValidationException("Вещь " + itemId + " уже удерживается другим пользователем");
+                });
+    }
+
+    @Override
+    public void releaseHold(long userId, long itemId) {
+        userService.checkUserExist(userId);
+        bookingHolds.release(itemId, userId);
+    }
+
+    //пропущенные события отправляются подписчику вне транзакции
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public SseEmitter subscribe(long userId, Long lastEventId) {
+        userService.checkUserExist(userId);
+        return bookingEventRelay.subscribe(userId, lastEventId);
+    }
+
+    @Transactional
+    @Override
+    public WaitlistEntryDto joinWaitlist(long userId, WaitlistEntryDto waitlistEntryDto) {
+        checkBookingDates(waitlistEntryDto.getStart(), waitlistEntryDto.getEnd());
+        userService.checkUserExist(userId);
+
+        long itemId = waitlistEntryDto.getItemId();
+        itemService.checkItemExists(itemId);
+
+        //в очередь одной вещи можно встать на разные периоды, но не на пересекающиеся
+        if (waitlistRepository.existsOverlapping(itemId, userId, waitlistEntryDto.getStart(),
+                waitlistEntryDto.getEnd())) {
+            log.warn("Пользователь {} уже находится в очереди ожидания вещи {} на этот период", userId, itemId);
+            throw new ValidationException("Пользователь " + userId + " уже находится в очереди ожидания вещи " +
+                    itemId + " на пересекающийся период");
+        }
+
+        WaitlistEntry waitlistEntry = BookingMapper.toWaitlistEntry(waitlistEntryDto, userId);
+        return BookingMapper.toWaitlistEntryDto(waitlistRepository.save(waitlistEntry));
+    }
+
+    @Transactional
+    @Override
+    public void leaveWaitlist(long userId, long entryId) {
+        WaitlistEntry waitlistEntry = waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new NotFoundException("Запись очереди ожидания " + entryId + " не найдена"));
+
+        if (waitlistEntry.getBookerId() != userId) {
+            log.warn("Удалить запись из очереди ожидания может только ее автор");
+            throw new OwnershipException("Пользователь " + userId + " не является автором записи " + entryId);
+        }
+
+        waitlistRepository.delete(waitlistEntry);
+    }
+
     @Transactional
     @Override
     public ResponseBookingDto update(long userId, long bookingId, boolean approved) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new NotFoundException("Бронирование " + bookingId + " не найдено"));
+        Booking booking = findBooking(bookingId);
+
+        Item item = booking.getItem();
+        long itemId = item.getId();
+        Status oldStatus = booking.getStatus();
 
-        long itemId = booking.getItem().getId();
+        //и подтвердить, и отклонить бронирование может только владелец вещи
+        itemService.checkItemOwnership(userId, item);
 
         if (approved) {
-            Item item = itemRepository.findById(itemId)
-                    .orElseThrow(() -> new NotFoundException("Вещь " + itemId + " не найдена"));
-            itemService.checkItemOwnership(userId, item);
             booking.setStatus(Status.APPROVED);
             item.setAvailable(false);
             itemRepository.save(item);
@@ -85,6 +256,13 @@ public class BookingServiceImpl implements BookingService {
         }
 
         booking = bookingRepository.save(booking);
+        if (booking.getStatus() == Status.REJECTED && oldStatus != Status.REJECTED) {
+            promoteFromWaitlist(item);
+        }
+        bookingCounters.registerStatusChanged(booking, oldStatus);
+        if (booking.getStatus() != oldStatus) {
+            bookingEventRepository.save(BookingMapper.toBookingEvent(booking));
+        }
 
         return BookingMapper.toResponseBookingDto(booking,
                 itemRepository.findShortItemDtoById(itemId),
@@ -95,8 +273,7 @@ public class BookingServiceImpl implements BookingService {
     public ResponseBookingDto get(long userId, long bookingId) {
         userService.checkUserExist(userId);
 
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new NotFoundException("Бронирование " + bookingId + " не найдено"));
+        Booking booking = findBooking(bookingId);
 
         //Может быть выполнено либо автором бронирования, либо владельцем вещи, к которой относится бронирование
         Item item = booking.getItem();
@@ -113,9 +290,11 @@ public class BookingServiceImpl implements BookingService {
     @Override
     public List<ResponseBookingDto> getUserBookings(long userId, String state) {
         userService.checkUserExist(userId);
-        BooleanExpression predicate = QBooking.booking.booker.id.eq(userId);
+        BooleanExpression predicate = QBooking.booking.booker.id.eq(userId)
+                .and(QBooking.booking.item.owner.deleted.isFalse());
 
-        return getBookings(userId, state, predicate);
+        return getBookings(userId, state, predicate,
+                () -> withoutDeletedUsers(bookingArchive.findAllByBookerId(userId), ArchivedBooking::getOwnerId));
     }
 
     @Override
@@ -127,12 +306,46 @@ public class BookingServiceImpl implements BookingService {
             return new ArrayList<>();
         }
 
-        BooleanExpression predicate = QBooking.booking.item.in(userItems);
+        BooleanExpression predicate = QBooking.booking.item.in(userItems)
+                .and(QBooking.booking.booker.deleted.isFalse());
 
-        return getBookings(userId, state, predicate);
+        return getBookings(userId, state, predicate,
+                () -> withoutDeletedUsers(bookingArchive.findAllByOwnerId(userId), ArchivedBooking::getBookerId));
     }
 
-    private List<ResponseBookingDto> getBookings(long userId, String state, BooleanExpression predicate) {
+    @Override
+    public BookingCountsDto getCounts(long userId) {
+        userService.checkUserExist(userId);
+        LocalDateTime now = LocalDateTime.now();
+
+        BookingCountsDto bookingCountsDto = new BookingCountsDto();
+        bookingCountsDto.setBooker(bookingCounters.getBookerCounts(userId, now));
+        bookingCountsDto.setOwner(bookingCounters.getOwnerCounts(userId, now));
+        return bookingCountsDto;
+    }
+
+    //бронирования, где арендатор или владелец вещи удален, не показываются, пока их не удалит UserPurgeJob
+    private Booking findBooking(long bookingId) {
+        return bookingRepository.findWithItemById(bookingId)
+                .filter(booking -> !booking.getBooker().isDeleted() && !booking.getItem().getOwner().isDeleted())
+                .orElseThrow(() -> new NotFoundException("Бронирование " + bookingId + " не найдено"));
+    }
+
+    //user - второй участник бронирования: арендатор для владельца, владелец для арендатора
+    private List<ArchivedBooking> withoutDeletedUsers(List<ArchivedBooking> archived,
+                                                      Function<ArchivedBooking, Long> user) {
+        if (archived.isEmpty()) {
+            return archived;
+        }
+        Set<Long> deleted = new HashSet<>(userRepository.findDeletedIdsByIdIn(
+                archived.stream().map(user).collect(Collectors.toSet())));
+        return archived.stream()
+                .filter(booking -> !deleted.contains(user.apply(booking)))
+                .toList();
+    }
+
+    private List<ResponseBookingDto> getBookings(long userId, String state, BooleanExpression predicate,
+                                                 Supplier<List<ArchivedBooking>> archivedBookings) {
         BookingState bookingState;
         try {
             bookingState = BookingState.valueOf(state.toUpperCase());
@@ -146,9 +359,11 @@ public class BookingServiceImpl implements BookingService {
         switch (bookingState) {
             case ALL -> {
             }
-            case CURRENT -> predicate = predicate.and(QBooking.booking.start.after(now))
+            //условие на start_date во всех временных состояниях позволяет отсечь лишние секции bookings
+            case CURRENT -> predicate = predicate.and(QBooking.booking.start.before(now))
                     .and(QBooking.booking.end.after(now));
-            case PAST -> predicate = predicate.and(QBooking.booking.end.before(now));
+            case PAST -> predicate = predicate.and(QBooking.booking.start.before(now))
+                    .and(QBooking.booking.end.before(now));
             case FUTURE -> predicate = predicate.and(QBooking.booking.start.after(now));
             case WAITING -> predicate = predicate.and(QBooking.booking.status.eq(Status.WAITING));
             case REJECTED -> predicate = predicate.and(QBooking.booking.status.eq(Status.REJECTED));
@@ -158,16 +373,98 @@ public class BookingServiceImpl implements BookingService {
         List<Booking> userBookings = (List<Booking>) bookingRepository
                 .findAll(predicate, Sort.by("start").descending());
 
-        return userBookings.stream()
+        List<ResponseBookingDto> result = userBookings.stream()
                 .map(booking -> BookingMapper.toResponseBookingDto(booking,
                         itemRepository.findShortItemDtoById(booking.getItem().getId()),
                         shortUserDto)).toList();
+
+        //в архиве только завершенные бронирования, поэтому он нужен лишь для ALL, PAST, WAITING и REJECTED
+        List<ArchivedBooking> archived = switch (bookingState) {
+            case ALL, PAST -> archivedBookings.get();
+            case WAITING, REJECTED -> archivedBookings.get().stream()
+                    .filter(booking -> booking.getStatus().name().equals(bookingState.name()))
+                    .toList();
+            default -> List.of();
+        };
+
+        return mergeArchived(result, archived, shortUserDto);
+    }
+
+    //строки, которые уже есть в таблице (архивация не завершила транзакцию), берутся из таблицы
+    private List<ResponseBookingDto> mergeArchived(List<ResponseBookingDto> bookings,
+                                                   List<ArchivedBooking> archived,
+                                                   ShortUserDto shortUserDto) {
+        if (archived.isEmpty()) {
+            return bookings;
+        }
+
+        Set<Long> ids = bookings.stream().map(ResponseBookingDto::getId).collect(Collectors.toSet());
+        List<ResponseBookingDto> merged = new ArrayList<>(bookings);
+        for (ArchivedBooking booking : archived) {
+            if (!ids.contains(booking.getId())) {
+                merged.add(BookingMapper.toResponseBookingDto(booking,
+                        itemRepository.findShortItemDtoById(booking.getItemId()),
+                        shortUserDto));
+            }
+        }
+        merged.sort(Comparator.comparing(ResponseBookingDto::getStart).reversed());
+        return merged;
+    }
+
+    //первая актуальная запись очереди ожидания становится новым бронированием в той же транзакции.
+    //Записи, пересекающиеся с подтвержденными бронированиями, ждут дальше; недоступная вещь не бронируется
+    private void promoteFromWaitlist(Item item) {
+        long itemId = item.getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        //записи, период которых уже начался, больше не актуальны
+        waitlistRepository.deleteAllByItemIdAndStartLessThanEqual(itemId, now);
+
+        if (!item.isAvailable()) {
+            return;
+        }
+
+        Optional<WaitlistEntry> head = waitlistRepository.findFirstPromotable(itemId, now);
+        if (head.isEmpty()) {
+            return;
+        }
+
+        WaitlistEntry waitlistEntry = head.get();
+        waitlistRepository.delete(waitlistEntry);
+
+        Booking booking = new Booking();
+        booking.setStart(waitlistEntry.getStart());
+        booking.setEnd(waitlistEntry.getEnd());
+        booking.setItem(item);
+        booking.setBooker(userRepository.getReferenceById(waitlistEntry.getBookerId()));
+        booking.setStatus(Status.WAITING);
+        booking = bookingRepository.save(booking);
+        bookingCounters.registerCreated(booking);
+        bookingEventRepository.save(BookingMapper.toBookingEvent(booking));
+
+        log.info("Бронирование {} создано из очереди ожидания вещи {} для пользователя {}",
+                booking.getId(), itemId, waitlistEntry.getBookerId());
     }
 
-    private void checkBookingDates(BookingDto bookingDto) {
-        LocalDateTime start = bookingDto.getStart();
-        LocalDateTime end = bookingDto.getEnd();
+    //одна и та же вещь не может быть забронирована в корзине на пересекающиеся периоды
+    private void checkCartOverlaps(List<BookingDto> bookingDtos) {
+        Map<Long, List<BookingDto>> byItem = bookingDtos.stream()
+                .collect(Collectors.groupingBy(BookingDto::getItemId));
+
+        for (List<BookingDto> itemBookings : byItem.values()) {
+            List<BookingDto> sorted = itemBookings.stream()
+                    .sorted(Comparator.comparing(BookingDto::getStart))
+                    .toList();
+            for (int i = 1; i < sorted.size(); i++) {
+                if (sorted.get(i).getStart().isBefore(sorted.get(i - 1).getEnd())) {
+                    throw new ValidationException("Вещь " + sorted.get(i).getItemId() +
+                            " несколько раз забронирована в корзине на пересекающиеся периоды");
+                }
+            }
+        }
+    }
 
+    private void checkBookingDates(LocalDateTime start, LocalDateTime end) {
         if (start.equals(end)) {
             log.warn("Даты начала и окончания бронирования должны различаться");
             throw new InvalidBookingDatesException("Даты начала и окончания бронирования должны различаться");
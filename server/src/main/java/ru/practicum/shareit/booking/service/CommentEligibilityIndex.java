@@ -0,0 +1,231 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingEligibilityDto;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingsPurgedEvent;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingArchive;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Индекс пар (арендатор, вещь), для которых есть завершенное подтвержденное бронирование,
+//то есть арендатор может оставить отзыв о вещи. Проверка не обращается к базе.
+//Для каждого арендатора хранится отсортированный массив id вещей и число завершенных подтвержденных
+//бронирований каждой из них: когда подтверждение снимают, пара остается, пока ее подтверждает другое бронирование.
+//Подтвержденные, но еще не завершенные бронирования ждут в очереди по дате окончания.
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CommentEligibilityIndex implements SmartInitializingSingleton {
+    private final BookingRepository bookingRepository;
+    private final BookingArchive bookingArchive;
+
+    private final Map<Long, EligibleItems> eligibleItems = new ConcurrentHashMap<>();
+    private final Map<Long, Pending> pendingById = new HashMap<>();
+    private final PriorityQueue<Pending> pendingByEnd = new PriorityQueue<>(Comparator.comparing(Pending::end));
+
+    //индекс заполняется до запуска веб-сервера: иначе отзывы отклонялись бы до конца прогрева,
+    //а подтверждение во время прогрева попало бы в индекс дважды
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp();
+    }
+
+    public void warmUp() {
+        List<BookingEligibilityDto> approved = bookingRepository.findAllApprovedEligibility();
+        Set<Long> approvedIds = new HashSet<>();
+        for (BookingEligibilityDto booking : approved) {
+            approve(booking.getId(), booking.getBookerId(), booking.getItemId(), booking.getEnd());
+            approvedIds.add(booking.getId());
+        }
+
+        //в архиве только завершенные бронирования; строка, еще не удаленная из таблицы, уже учтена
+        long archived = 0;
+        for (ArchivedBooking booking : bookingArchive.findAll()) {
+            if (booking.getStatus() == Status.APPROVED && !approvedIds.contains(booking.getId())) {
+                addEligible(booking.getBookerId(), booking.getItemId());
+                archived++;
+            }
+        }
+        log.info("Индекс права на отзыв заполнен: {} подтвержденных бронирований, {} в архиве",
+                approved.size(), archived);
+    }
+
+    public boolean isEligible(long bookerId, long itemId, LocalDateTime now) {
+        promoteFinished(now);
+        EligibleItems items = eligibleItems.get(bookerId);
+        return items != null && Arrays.binarySearch(items.itemIds(), itemId) >= 0;
+    }
+
+    //вызывается после каждой записи бронирования через JPA со статусом, который был в базе до записи
+    public void onSaved(Booking booking, Status oldStatus) {
+        Status newStatus = booking.getStatus();
+        if (oldStatus == newStatus || (oldStatus != Status.APPROVED && newStatus != Status.APPROVED)) {
+            return;
+        }
+
+        long bookingId = booking.getId();
+        long bookerId = booking.getBooker().getId();
+        long itemId = booking.getItem().getId();
+        LocalDateTime end = booking.getEnd();
+        if (newStatus == Status.APPROVED) {
+            if (approve(bookingId, bookerId, itemId, end)) {
+                onRollback(() -> unapprove(bookingId, bookerId, itemId));
+            }
+        } else if (unapprove(bookingId, bookerId, itemId)) {
+            onRollback(() -> approve(bookingId, bookerId, itemId, end));
+        }
+    }
+
+    //бронирования удаленного пользователя больше не дают права на отзыв
+    @EventListener
+    public void onBookingsPurged(BookingsPurgedEvent event) {
+        List<ArchivedBooking> approved = event.bookings().stream()
+                .filter(booking -> booking.getStatus() == Status.APPROVED)
+                .toList();
+        afterCommit(() -> approved.forEach(booking ->
+                unapprove(booking.getId(), booking.getBookerId(), booking.getItemId())));
+    }
+
+    //возвращает true, если индекс изменился
+    private synchronized boolean approve(long bookingId, long bookerId, long itemId, LocalDateTime end) {
+        if (end.isAfter(LocalDateTime.now())) {
+            return addPending(new Pending(bookingId, bookerId, itemId, end));
+        }
+        addEligible(bookerId, itemId);
+        return true;
+    }
+
+    //снимает подтверждение: из очереди, если бронирование еще не завершилось, иначе из числа бронирований пары
+    private synchronized boolean unapprove(long bookingId, long bookerId, long itemId) {
+        return removePending(bookingId) != null || removeEligible(bookerId, itemId);
+    }
+
+    private synchronized void promoteFinished(LocalDateTime now) {
+        while (!pendingByEnd.isEmpty() && !pendingByEnd.peek().end().isAfter(now)) {
+            Pending pending = pendingByEnd.poll();
+            //в очереди могут остаться записи, отмененные после подтверждения
+            if (pendingById.remove(pending.bookingId(), pending)) {
+                addEligible(pending.bookerId(), pending.itemId());
+            }
+        }
+    }
+
+    private synchronized boolean addPending(Pending pending) {
+        if (pending.equals(pendingById.get(pending.bookingId()))) {
+            return false;
+        }
+        pendingById.put(pending.bookingId(), pending);
+        pendingByEnd.add(pending);
+        return true;
+    }
+
+    private synchronized Pending removePending(long bookingId) {
+        return pendingById.remove(bookingId);
+    }
+
+    //массив id вещей читается без блокировки, поэтому он заменяется целиком, а число бронирований меняется на месте
+    private void addEligible(long bookerId, long itemId) {
+        eligibleItems.compute(bookerId, (key, items) -> {
+            if (items == null) {
+                return new EligibleItems(new long[]{itemId}, new int[]{1});
+            }
+            int index = Arrays.binarySearch(items.itemIds(), itemId);
+            if (index >= 0) {
+                items.counts()[index]++;
+                return items;
+            }
+            int insertAt = -index - 1;
+            int length = items.itemIds().length;
+            long[] itemIds = new long[length + 1];
+            int[] counts = new int[length + 1];
+            System.arraycopy(items.itemIds(), 0, itemIds, 0, insertAt);
+            System.arraycopy(items.counts(), 0, counts, 0, insertAt);
+            itemIds[insertAt] = itemId;
+            counts[insertAt] = 1;
+            System.arraycopy(items.itemIds(), insertAt, itemIds, insertAt + 1, length - insertAt);
+            System.arraycopy(items.counts(), insertAt, counts, insertAt + 1, length - insertAt);
+            return new EligibleItems(itemIds, counts);
+        });
+    }
+
+    //возвращает true, если пара была в индексе; пара удаляется, когда у нее не остается бронирований
+    private boolean removeEligible(long bookerId, long itemId) {
+        boolean[] removed = new boolean[1];
+        eligibleItems.computeIfPresent(bookerId, (key, items) -> {
+            int index = Arrays.binarySearch(items.itemIds(), itemId);
+            if (index < 0) {
+                return items;
+            }
+            removed[0] = true;
+            if (--items.counts()[index] > 0) {
+                return items;
+            }
+            int length = items.itemIds().length;
+            if (length == 1) {
+                return null;
+            }
+            long[] itemIds = new long[length - 1];
+            int[] counts = new int[length - 1];
+            System.arraycopy(items.itemIds(), 0, itemIds, 0, index);
+            System.arraycopy(items.counts(), 0, counts, 0, index);
+            System.arraycopy(items.itemIds(), index + 1, itemIds, index, length - index - 1);
+            System.arraycopy(items.counts(), index + 1, counts, index, length - index - 1);
+            return new EligibleItems(itemIds, counts);
+        });
+        return removed[0];
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    //индекс меняется при flush, до коммита, поэтому при откате изменение нужно вернуть
+    private void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    private record Pending(long bookingId, long bookerId, long itemId, LocalDateTime end) {
+    }
+
+    //i-е число - завершенные подтвержденные бронирования i-й вещи
+    private record EligibleItems(long[] itemIds, int[] counts) {
+    }
+}
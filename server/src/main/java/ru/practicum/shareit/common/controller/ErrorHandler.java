@@ -37,4 +37,10 @@ public class ErrorHandler {
     public ErrorResponse invalidBookingDatesExceptionHandle(final InvalidBookingDatesException e) {
         return new ErrorResponse(e.getMessage());
     }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse badRequestExceptionHandle(final BadRequestException e) {
+        return new ErrorResponse(e.getMessage());
+    }
 }
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.common.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+//Запоминает пользователя запроса для окна read-your-writes
+@RequiredArgsConstructor
+public class CurrentUserInterceptor implements HandlerInterceptor {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private final ReadYourWritesWindow readYourWrites;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String userId = request.getHeader(USER_ID_HEADER);
+        if (userId != null) {
+            try {
+                readYourWrites.setCurrentUser(Long.parseLong(userId));
+            } catch (NumberFormatException e) {
+                //некорректный заголовок отклонит контроллер
+                readYourWrites.clearCurrentUser();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        readYourWrites.clearCurrentUser();
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.common.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Окно read-your-writes: после своей записи пользователь какое-то время читает из основной базы,
+//пока реплики не догнали ее. Запись отмечается после коммита, откаченная транзакция окно не открывает.
+//Записью считается транзакция не readOnly; соединения вне транзакций (служебные, при старте) окно не открывают.
+//Пользователь текущего запроса берется из заголовка X-Sharer-User-Id (см. CurrentUserInterceptor).
+//Нулевое окно выключает механизм: все транзакции readOnly читают с реплик.
+public class ReadYourWritesWindow {
+    private final long windowNanos;
+    private final ThreadLocal<Long> currentUser = new ThreadLocal<>();
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesWindow(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void setCurrentUser(long userId) {
+        currentUser.set(userId);
+    }
+
+    public void clearCurrentUser() {
+        currentUser.remove();
+    }
+
+    public boolean isOpenForCurrentUser() {
+        Long userId = currentUser.get();
+        if (windowNanos == 0 || userId == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(userId);
+        return writtenAt != null && System.nanoTime() - writtenAt < windowNanos;
+    }
+
+    public void onWrite() {
+        Long userId = currentUser.get();
+        if (windowNanos == 0 || userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWrites.put(userId, System.nanoTime());
+            }
+        });
+    }
+
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+    }
+}
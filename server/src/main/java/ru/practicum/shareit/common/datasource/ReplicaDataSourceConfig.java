@@ -0,0 +1,71 @@
+package ru.practicum.shareit.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Чтение с реплик включается списком shareit.datasource.replicas.urls, без него работает одна основная база.
+//Реплики подключаются теми же драйвером и учетной записью, что и основная база.
+@Configuration
+@ConditionalOnProperty("shareit.datasource.replicas.urls")
+public class ReplicaDataSourceConfig {
+    @Bean
+    public ReadYourWritesWindow readYourWritesWindow(
+            @Value("${shareit.datasource.replicas.read-your-writes-window:0s}") Duration window) {
+        return new ReadYourWritesWindow(window);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            ReadYourWritesWindow readYourWritesWindow,
+            @Value("${shareit.datasource.replicas.urls}") List<String> urls,
+            @Value("${shareit.datasource.replicas.connection-timeout:1s}") Duration connectionTimeout,
+            @Value("${shareit.datasource.replicas.validation-timeout-seconds:1}") int validationTimeoutSeconds) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .build();
+            replica.setPoolName("replica-" + (i + 1));
+            //недоступная реплика не должна задерживать чтение: после таймаута оно уходит в основную базу
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWritesWindow, validationTimeoutSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public WebMvcConfigurer currentUserInterceptorConfigurer(ReadYourWritesWindow readYourWritesWindow) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new CurrentUserInterceptor(readYourWritesWindow));
+            }
+        };
+    }
+}
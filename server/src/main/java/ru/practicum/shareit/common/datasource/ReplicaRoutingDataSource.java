@@ -0,0 +1,114 @@
+package ru.practicum.shareit.common.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Соединения для транзакций readOnly берутся с реплик по кругу, все остальные - с основной базы.
+//Реплика, не прошедшая проверку или не отдавшая соединение, исключается до следующей успешной проверки;
+//если здоровых реплик нет, чтение идет в основную базу. Новая реплика считается нездоровой до первой проверки.
+//Источник выбирается при получении соединения, поэтому оборачивается в LazyConnectionDataSourceProxy:
+//тогда соединение берется при первом запросе, когда признак readOnly транзакции уже выставлен.
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesWindow readYourWrites;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReadYourWritesWindow readYourWrites, int validationTimeoutSeconds) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue(), new AtomicBoolean()))
+                .toList();
+        this.readYourWrites = readYourWrites;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWrites.onWrite();
+            return primary.getConnection();
+        }
+        if (!readYourWrites.isOpenForCurrentUser()) {
+            Connection connection = getReplicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedRateString = "${shareit.datasource.replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource().getConnection()) {
+                healthy = connection.isValid(validationTimeoutSeconds);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (replica.healthy().getAndSet(healthy) != healthy) {
+                if (healthy) {
+                    log.info("Реплика {} доступна, чтение идет на нее", replica.name());
+                } else {
+                    log.warn("Реплика {} не прошла проверку, исключена из чтения", replica.name());
+                }
+            }
+        }
+        readYourWrites.evictExpired();
+    }
+
+    public long getHealthyReplicaCount() {
+        return replicas.stream().filter(replica -> replica.healthy().get()).count();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection getReplicaConnection() {
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy().get()) {
+                continue;
+            }
+            try {
+                return replica.dataSource().getConnection();
+            } catch (SQLException e) {
+                replica.healthy().set(false);
+                log.warn("Реплика {} не отдала соединение, исключена из чтения: {}", replica.name(), e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private record Replica(String name, DataSource dataSource, AtomicBoolean healthy) {
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.common.exceptions;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.common.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.exceptions.InternalServerException;
+import ru.practicum.shareit.common.exceptions.ValidationException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+//Хранилище ответов на запросы с заголовком Idempotency-Key.
+//Повтор запроса с тем же ключом (например, ретрай клиента после таймаута) получает сохраненный ответ,
+//а создание не выполняется второй раз. Записи хранятся ограниченное время и в ограниченном количестве;
+//запись, запрос по которой еще выполняется, не вытесняется. Тела запросов сравниваются по хешу
+//канонического JSON (свойства по алфавиту), а не по toString.
+@Slf4j
+@Component
+public class IdempotencyStore {
+    private static final ObjectMapper CANONICAL_JSON = JsonMapper.builder()
+            .findAndAddModules()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long awaitTimeoutMillis;
+    //порядок вставки совпадает с порядком истечения срока, поэтому вытесняем с головы
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public IdempotencyStore(@Value("${shareit.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${shareit.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${shareit.idempotency.await-timeout:30s}") Duration awaitTimeout) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.awaitTimeoutMillis = awaitTimeout.toMillis();
+    }
+
+    public <T> T execute(String scope, long userId, @Nullable String key, Object request, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        String fingerprint = scope + ":" + userId + ":" + key;
+        String requestBody = hash(request);
+        Entry entry;
+        boolean owner = false;
+
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            evict(now);
+            entry = entries.get(fingerprint);
+            if (entry == null) {
+                entry = new Entry(requestBody, now + ttlMillis, new CompletableFuture<>());
+                entries.put(fingerprint, entry);
+                owner = true;
+            }
+        }
+
+        if (!entry.request().equals(requestBody)) {
+            throw new ValidationException("Ключ идемпотентности " + key + " уже использован для другого запроса");
+        }
+        if (!owner) {
+            log.debug("Повторный запрос {} с ключом идемпотентности {}", scope, key);
+            return await(entry, key);
+        }
+
+        try {
+            T result = action.get();
+            entry.response().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            //неуспешный запрос можно повторить с тем же ключом
+            synchronized (this) {
+                entries.remove(fingerprint, entry);
+            }
+            entry.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    //повтор ждет ответа первого запроса ограниченное время, а не занимает поток, пока тот не завершится
+    @SuppressWarnings("unchecked")
+    private <T> T await(Entry entry, String key) {
+        try {
+            return (T) entry.response().get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ValidationException("Запрос с ключом идемпотентности " + key +
+                    " еще выполняется, повторите его позже");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerException("Ожидание ответа на запрос с ключом идемпотентности " + key +
+                    " прервано");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new InternalServerException(e.getMessage());
+        }
+    }
+
+    //выполняющиеся записи пропускаются: иначе повтор создал бы второй объект, пока первый запрос не завершен
+    private void evict(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expiresAtMillis() > now && entries.size() < maxEntries) {
+                break;
+            }
+            if (entry.response().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String hash(Object request) {
+        try {
+            byte[] json = CANONICAL_JSON.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new InternalServerException("Не удалось вычислить хеш запроса: " + e.getMessage());
+        }
+    }
+
+    private record Entry(String request, long expiresAtMillis, CompletableFuture<Object> response) {
+    }
+}
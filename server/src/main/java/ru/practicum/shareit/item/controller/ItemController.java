@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.common.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemExtendedDto;
 import ru.practicum.shareit.item.dto.ItemUpdateDto;
@@ -15,10 +16,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService itemService;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping
-    public ItemDto create(@RequestHeader("X-Sharer-User-Id") long userId, @RequestBody ItemDto itemDto) {
-        return itemService.create(userId, itemDto);
+    public ItemDto create(@RequestHeader("X-Sharer-User-Id") long userId,
+                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                          @RequestBody ItemDto itemDto) {
+        return idempotencyStore.execute("items", userId, idempotencyKey, itemDto,
+                () -> itemService.create(userId, itemDto));
     }
 
     @PatchMapping("{itemId}")
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.dto;
+
+//вещь, созданная в ответ на запрос, вместе с id этого запроса
+public interface RequestItemDto {
+    long getRequestId();
+
+    long getId();
+
+    String getName();
+
+    long getOwnerId();
+}
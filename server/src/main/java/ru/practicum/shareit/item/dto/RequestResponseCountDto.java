@@ -0,0 +1,8 @@
+package ru.practicum.shareit.item.dto;
+
+//число вещей, созданных в ответ на запрос
+public interface RequestResponseCountDto {
+    long getRequestId();
+
+    long getResponseCount();
+}
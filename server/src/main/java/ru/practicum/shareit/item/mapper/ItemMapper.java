@@ -5,6 +5,7 @@ import ru.practicum.shareit.booking.dto.ShortBookingDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemExtendedDto;
+import ru.practicum.shareit.item.dto.RequestItemDto;
 import ru.practicum.shareit.item.dto.ResponseItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -51,6 +52,14 @@ public class ItemMapper {
         return item;
     }
 
+    public ResponseItemDto toResponseItemDto(RequestItemDto item) {
+        ResponseItemDto responseItemDto = new ResponseItemDto();
+        responseItemDto.setId(item.getId());
+        responseItemDto.setName(item.getName());
+        responseItemDto.setOwnerId(item.getOwnerId());
+        return responseItemDto;
+    }
+
     public ResponseItemDto toResponseItemDto(Item item) {
         ResponseItemDto responseItemDto = new ResponseItemDto();
         responseItemDto.setId(item.getId());
@@ -1,10 +1,17 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Comment;
 
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findAllByItemId(long itemId);
+    //имя автора попадает в ответ: авторы загружаются тем же запросом, а не по одному на отзыв.
+    //Отзывы удаленных авторов не показываются, пока их не удалит UserPurgeJob
+    @EntityGraph(attributePaths = "author")
+    @Query("SELECT c FROM Comment c WHERE c.item.id = :itemId AND c.author.deleted = false")
+    List<Comment> findAllByItemId(@Param("itemId") long itemId);
 }
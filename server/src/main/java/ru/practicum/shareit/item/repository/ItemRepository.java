@@ -1,25 +1,51 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.RequestItemDto;
+import ru.practicum.shareit.item.dto.RequestResponseCountDto;
 import ru.practicum.shareit.item.dto.ShortItemDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
-    List<Item> findAllByOwnerId(long ownerId);
+    @Query("SELECT i FROM Item i WHERE i.owner.id = :ownerId AND i.owner.deleted = false")
+    List<Item> findAllByOwnerId(@Param("ownerId") long ownerId);
+
+    //владелец нужен для проверки удаления: загружается тем же запросом
+    @EntityGraph(attributePaths = "owner")
+    Optional<Item> findWithOwnerById(long itemId);
+
+    @Query("SELECT i FROM Item i WHERE i.available = true AND i.owner.deleted = false")
+    List<Item> findAllAvailable();
 
     @Query("SELECT i FROM Item as i " +
-            "WHERE i.available = true AND " +
+            "WHERE i.available = true AND i.owner.deleted = false AND " +
             "(LOWER(i.name) LIKE CONCAT('%', LOWER (:text), '%') OR " +
             "LOWER(i.description) LIKE CONCAT('%', LOWER (:text), '%'))")
     List<Item> findByText(@Param("text") String text);
 
     ShortItemDto findShortItemDtoById(long itemId);
 
+    List<ShortItemDto> findShortItemDtosByIdIn(Collection<Long> itemIds);
+
     List<Item> findAllByRequestId(long requestId);
 
     List<Item> findAllByRequestIdIn(List<Long> requestIds);
+
+    //вещи удаленных владельцев не показываются в ответах на запросы, пока их не удалит UserPurgeJob
+    @Query("SELECT i.request.id AS requestId, i.id AS id, i.name AS name, i.owner.id AS ownerId " +
+            "FROM Item i " +
+            "WHERE i.request.id IN :requestIds AND i.owner.deleted = false")
+    List<RequestItemDto> findRequestItemDtosByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
+    @Query("SELECT i.request.id AS requestId, COUNT(i) AS responseCount FROM Item i " +
+            "WHERE i.request.id IN :requestIds AND i.owner.deleted = false " +
+            "GROUP BY i.request.id")
+    List<RequestResponseCountDto> countByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
 }
@@ -7,6 +7,7 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.ShortBookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.CommentEligibilityIndex;
 import ru.practicum.shareit.common.exceptions.InternalServerException;
 import ru.practicum.shareit.common.exceptions.NotFoundException;
 import ru.practicum.shareit.common.exceptions.OwnershipException;
@@ -22,6 +23,7 @@ import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.RequestItemMatcher;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
@@ -41,6 +43,8 @@ public class ItemServiceImpl implements ItemService {
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final CommentEligibilityIndex commentEligibilityIndex;
+    private final RequestItemMatcher requestItemMatcher;
 
     @Transactional
     public ItemDto create(long userId, ItemDto itemDto) {
@@ -60,6 +64,7 @@ public class ItemServiceImpl implements ItemService {
         }
 
         item = itemRepository.save(item);
+        requestItemMatcher.onItemSaved(item);
         return ItemMapper.toItemDto(item);
     }
 
@@ -89,12 +94,14 @@ public class ItemServiceImpl implements ItemService {
         }
 
         item = itemRepository.save(item);
+        requestItemMatcher.onItemSaved(item);
         return ItemMapper.toItemDto(item);
     }
 
     @Override
     public ItemExtendedDto get(long itemId) {
-        Item item = itemRepository.findById(itemId)
+        Item item = itemRepository.findWithOwnerById(itemId)
+                .filter(found -> !found.getOwner().isDeleted())
                 .orElseThrow(() -> new NotFoundException("Вещь " + itemId + " не найдена"));
 
         LocalDateTime now = LocalDateTime.now();
@@ -153,8 +160,8 @@ public class ItemServiceImpl implements ItemService {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Вещь " + itemId + " не найдена"));
 
-        if (!bookingRepository.existsFinishedBookingByBookerIdAndItemId(authorId, itemId,
-                LocalDateTime.now())) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!commentEligibilityIndex.isEligible(authorId, itemId, now)) {
             log.warn("Пользователь {} не арендовал вещь {} или аренда еще на завершилась", authorId, itemId);
             throw new InternalServerException("Пользователь " + authorId +
                     " не арендовал вещь " + itemId + " или аренда еще на завершилась");
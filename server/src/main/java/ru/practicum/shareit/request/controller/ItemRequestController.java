@@ -1,9 +1,15 @@
 package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestExtendedDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.ItemRequestSummaryDto;
+import ru.practicum.shareit.request.dto.ItemSuggestionDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
 import java.util.List;
@@ -12,6 +18,9 @@ import java.util.List;
 @RequestMapping(path = "/requests")
 @RequiredArgsConstructor
 public class ItemRequestController {
+    //тело ответа списков - массив запросов, курсор следующей страницы передается в этом заголовке
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ItemRequestService itemRequestService;
 
     @PostMapping
@@ -22,14 +31,34 @@ public class ItemRequestController {
 
 
     @GetMapping
-    public List<ItemRequestExtendedDto> getOwnRequests(@RequestHeader("X-Sharer-User-Id") long userId) {
-        return itemRequestService.getOwnRequests(userId);
+    public ResponseEntity<List<ItemRequestExtendedDto>> getOwnRequests(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "20") int size) {
+        return toResponse(itemRequestService.getOwnRequests(userId, cursor, size));
+    }
+
+    //краткий режим списка: вместо вещей-ответов их количество
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<List<ItemRequestSummaryDto>> getOwnRequestSummaries(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return toResponse(itemRequestService.getOwnRequestSummaries(userId, cursor, size));
     }
 
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllRequests(@RequestHeader("X-Sharer-User-Id") long userId) {
-        return itemRequestService.getAllRequests(userId);
+    public ResponseEntity<List<ItemRequestDto>> getAllRequests(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "20") int size) {
+        return toResponse(itemRequestService.getAllRequests(userId, cursor, size));
+    }
+
+
+    //новые запросы других пользователей по мере создания
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return itemRequestService.subscribe(userId);
     }
 
 
@@ -38,4 +67,18 @@ public class ItemRequestController {
                                              @PathVariable long requestId) {
         return itemRequestService.getRequest(userId, requestId);
     }
+
+    @GetMapping("/{requestId}/suggestions")
+    public List<ItemSuggestionDto> getSuggestions(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @PathVariable long requestId) {
+        return itemRequestService.getSuggestions(userId, requestId);
+    }
+
+    private static <T> ResponseEntity<List<T>> toResponse(ItemRequestPageDto<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getRequests());
+    }
 }
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.request.dto;
+
+import java.time.LocalDateTime;
+
+//строка соединения запроса с вещью-ответом; поля вещи равны null, если ответов нет
+public interface ItemRequestDetailRowDto {
+    long getRequestId();
+
+    String getDescription();
+
+    long getRequesterId();
+
+    LocalDateTime getCreated();
+
+    Long getItemId();
+
+    String getItemName();
+
+    Long getItemOwnerId();
+}
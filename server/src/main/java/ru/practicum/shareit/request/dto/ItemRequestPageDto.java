@@ -0,0 +1,16 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//nextCursor равен null, если страница последняя
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemRequestPageDto<T> {
+    private List<T> requests;
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.request.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+//запрос без вещей-ответов, только их количество
+@Data
+public class ItemRequestSummaryDto {
+    private long id;
+
+    private String description;
+
+    private long requesterId;
+
+    private long responseCount;
+
+    @JsonFormat(pattern = "dd.MM.yyyy HH:mm:ss")
+    private LocalDateTime created;
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSuggestionDto {
+    private long id;
+
+    private String name;
+
+    private long ownerId;
+
+    private double score;
+}
@@ -2,8 +2,10 @@ package ru.practicum.shareit.request.mapper;
 
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.item.dto.ResponseItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestDetailRowDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestExtendedDto;
+import ru.practicum.shareit.request.dto.ItemRequestSummaryDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -39,4 +41,35 @@ public class ItemRequestMapper {
         itemRequestExtendedDto.setCreated(itemRequest.getCreated());
         return itemRequestExtendedDto;
     }
+
+    //строки одного запроса из findDetailRowsById
+    public ItemRequestExtendedDto toItemrequestExtendedDto(List<ItemRequestDetailRowDto> rows) {
+        ItemRequestDetailRowDto first = rows.getFirst();
+        ItemRequestExtendedDto itemRequestExtendedDto = new ItemRequestExtendedDto();
+        itemRequestExtendedDto.setId(first.getRequestId());
+        itemRequestExtendedDto.setDescription(first.getDescription());
+        itemRequestExtendedDto.setRequesterId(first.getRequesterId());
+        itemRequestExtendedDto.setItems(rows.stream()
+                .filter(row -> row.getItemId() != null)
+                .map(row -> {
+                    ResponseItemDto responseItemDto = new ResponseItemDto();
+                    responseItemDto.setId(row.getItemId());
+                    responseItemDto.setName(row.getItemName());
+                    responseItemDto.setOwnerId(row.getItemOwnerId());
+                    return responseItemDto;
+                })
+                .toList());
+        itemRequestExtendedDto.setCreated(first.getCreated());
+        return itemRequestExtendedDto;
+    }
+
+    public ItemRequestSummaryDto toItemRequestSummaryDto(ItemRequest itemRequest, long responseCount) {
+        ItemRequestSummaryDto itemRequestSummaryDto = new ItemRequestSummaryDto();
+        itemRequestSummaryDto.setId(itemRequest.getId());
+        itemRequestSummaryDto.setDescription(itemRequest.getDescription());
+        itemRequestSummaryDto.setRequesterId(itemRequest.getRequester().getId());
+        itemRequestSummaryDto.setResponseCount(responseCount);
+        itemRequestSummaryDto.setCreated(itemRequest.getCreated());
+        return itemRequestSummaryDto;
+    }
 }
@@ -1,13 +1,57 @@
 package ru.practicum.shareit.request.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.dto.ItemRequestDetailRowDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findItemRequestByRequesterId(long requesterId);
+    //свои запросы пользователя: порядок совпадает с индексом ix_requests_requester_id_created
+    @Query("SELECT r FROM ItemRequest r " +
+            "WHERE r.requester.id = :userId " +
+            "ORDER BY r.created DESC, r.id")
+    List<ItemRequest> findOwnFirstPage(@Param("userId") long userId, Pageable pageable);
 
-    List<ItemRequest> findItemRequestByRequesterIdNotOrderByCreatedDesc(long requesterId);
+    @Query("SELECT r FROM ItemRequest r " +
+            "WHERE r.requester.id = :userId " +
+            "AND (r.created < :created OR (r.created = :created AND r.id > :id)) " +
+            "ORDER BY r.created DESC, r.id")
+    List<ItemRequest> findOwnPageAfter(@Param("userId") long userId,
+                                       @Param("created") LocalDateTime created,
+                                       @Param("id") long id,
+                                       Pageable pageable);
 
+    //лента чужих запросов с keyset-пагинацией: порядок совпадает с индексом ix_requests_created_id
+    @Query("SELECT r FROM ItemRequest r " +
+            "WHERE r.requester.id <> :userId AND r.requester.deleted = false " +
+            "ORDER BY r.created DESC, r.id")
+    List<ItemRequest> findFeedFirstPage(@Param("userId") long userId, Pageable pageable);
+
+    @Query("SELECT r FROM ItemRequest r " +
+            "WHERE r.requester.deleted = false " +
+            "ORDER BY r.created DESC, r.id")
+    List<ItemRequest> findFeedHead(Pageable pageable);
+
+    @Query("SELECT r FROM ItemRequest r " +
+            "WHERE r.requester.id <> :userId AND r.requester.deleted = false " +
+            "AND (r.created < :created OR (r.created = :created AND r.id > :id)) " +
+            "ORDER BY r.created DESC, r.id")
+    List<ItemRequest> findFeedPageAfter(@Param("userId") long userId,
+                                        @Param("created") LocalDateTime created,
+                                        @Param("id") long id,
+                                        Pageable pageable);
+
+    //запрос вместе с вещами-ответами одним запросом, только нужные колонки, без загрузки сущностей.
+    //Условие на владельца стоит в ON: запрос без ответов живых владельцев все равно возвращается
+    @Query("SELECT r.id AS requestId, r.description AS description, r.requester.id AS requesterId, " +
+            "r.created AS created, i.id AS itemId, i.name AS itemName, i.owner.id AS itemOwnerId " +
+            "FROM ItemRequest r LEFT JOIN Item i ON i.request = r AND i.owner.deleted = false " +
+            "WHERE r.id = :requestId AND r.requester.deleted = false " +
+            "ORDER BY i.id")
+    List<ItemRequestDetailRowDto> findDetailRowsById(@Param("requestId") long requestId);
 }
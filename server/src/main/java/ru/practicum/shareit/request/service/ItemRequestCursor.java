@@ -0,0 +1,35 @@
+package ru.practicum.shareit.request.service;
+
+import ru.practicum.shareit.common.exceptions.BadRequestException;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+//Позиция в ленте запросов: (created, id) последнего запроса страницы.
+//Клиенту передается непрозрачной строкой, чтобы не терять точность created при форматировании в JSON.
+public record ItemRequestCursor(LocalDateTime created, long id) {
+    private static final String SEPARATOR = "_";
+
+    public static ItemRequestCursor after(ItemRequestDto itemRequest) {
+        return new ItemRequestCursor(itemRequest.getCreated(), itemRequest.getId());
+    }
+
+    public static ItemRequestCursor decode(String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            return new ItemRequestCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Некорректный курсор " + value);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((created + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
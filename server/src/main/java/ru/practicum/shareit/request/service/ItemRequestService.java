@@ -1,16 +1,26 @@
 package ru.practicum.shareit.request.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestExtendedDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.ItemRequestSummaryDto;
+import ru.practicum.shareit.request.dto.ItemSuggestionDto;
 
 import java.util.List;
 
 public interface ItemRequestService {
     ItemRequestDto create(long userId, ItemRequestDto itemRequestDto);
 
-    List<ItemRequestExtendedDto> getOwnRequests(long userId);
+    ItemRequestPageDto<ItemRequestExtendedDto> getOwnRequests(long userId, String cursor, int size);
 
-    List<ItemRequestDto> getAllRequests(long userId);
+    ItemRequestPageDto<ItemRequestDto> getAllRequests(long userId, String cursor, int size);
+
+    ItemRequestPageDto<ItemRequestSummaryDto> getOwnRequestSummaries(long userId, String cursor, int size);
 
     ItemRequestExtendedDto getRequest(long userId, long requestId);
+
+    List<ItemSuggestionDto> getSuggestions(long userId, long requestId);
+
+    SseEmitter subscribe(long userId);
 }
@@ -1,16 +1,25 @@
 package ru.practicum.shareit.request.service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.common.exceptions.BadRequestException;
 import ru.practicum.shareit.common.exceptions.NotFoundException;
+import ru.practicum.shareit.item.dto.RequestItemDto;
+import ru.practicum.shareit.item.dto.RequestResponseCountDto;
 import ru.practicum.shareit.item.dto.ResponseItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
-import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDetailRowDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestExtendedDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.ItemRequestSummaryDto;
+import ru.practicum.shareit.request.dto.ItemSuggestionDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
@@ -19,10 +28,10 @@ import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Slf4j
-@RequiredArgsConstructor
 @Service
 @Transactional(readOnly = true)
 public class ItemRequestServiceImpl implements ItemRequestService {
@@ -30,72 +39,180 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final UserRepository userRepository;
     private final UserService userService;
     private final ItemRepository itemRepository;
+    private final RequestFeedCache requestFeedCache;
+    private final RequestItemMatcher requestItemMatcher;
+    private final RequestEventBroadcaster requestEventBroadcaster;
+    private final int maxPageSize;
+
+    public ItemRequestServiceImpl(ItemRequestRepository itemRequestRepository,
+                                  UserRepository userRepository,
+                                  UserService userService,
+                                  ItemRepository itemRepository,
+                                  RequestFeedCache requestFeedCache,
+                                  RequestItemMatcher requestItemMatcher,
+                                  RequestEventBroadcaster requestEventBroadcaster,
+                                  @Value("${shareit.request.feed.max-page-size:100}") int maxPageSize) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.itemRepository = itemRepository;
+        this.requestFeedCache = requestFeedCache;
+        this.requestItemMatcher = requestItemMatcher;
+        this.requestEventBroadcaster = requestEventBroadcaster;
+        this.maxPageSize = maxPageSize;
+    }
 
     @Transactional
     @Override
     public ItemRequestDto create(long userId, ItemRequestDto itemRequestDto) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь " + userId + " не найден"));
-        itemRequestDto.setCreated(LocalDateTime.now());
+        //база хранит время с точностью до микросекунд: курсор ленты должен совпадать с сохраненным значением
+        itemRequestDto.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestDto, user);
         itemRequest = itemRequestRepository.save(itemRequest);
-        return ItemRequestMapper.toItemRequestDto(itemRequest);
+        requestFeedCache.add(itemRequest);
+        requestItemMatcher.onRequestCreated(itemRequest);
+        ItemRequestDto created = ItemRequestMapper.toItemRequestDto(itemRequest);
+        requestEventBroadcaster.publish(created);
+        return created;
     }
 
+    //порядок и размер страницы задает база, вещи-ответы загружаются только для запросов страницы
     @Override
-    public List<ItemRequestExtendedDto> getOwnRequests(long userId) {
-        userService.checkUserExist(userId);
-        //получаем список запросов
-        List<ItemRequest> ownRequests = itemRequestRepository.findItemRequestByRequesterId(userId);
-
-        //если запросов не было - вернуть пустой список
+    public ItemRequestPageDto<ItemRequestExtendedDto> getOwnRequests(long userId, String cursor, int size) {
+        List<ItemRequest> ownRequests = findOwnPage(userId, cursor, size);
+        String nextCursor = nextCursor(ownRequests, size);
+        ownRequests = ownRequests.subList(0, Math.min(size, ownRequests.size()));
         if (ownRequests.isEmpty()) {
-            return List.of();
+            return new ItemRequestPageDto<>(List.of(), null);
         }
 
-        //получаем список id запросов
-        List<Long> ownRequestsIds = ownRequests.stream().map(ItemRequest::getId).toList();
-        //получаем список Item, созданных по запросам из списка
-        List<Item> responseItemsList = itemRepository.findAllByRequestIdIn(ownRequestsIds);
-        //группируем по id запроса и преобразуем в responseItemDto
-        Map<Long, List<ResponseItemDto>> responseItemMap = toResponseItemMap(responseItemsList);
+        //id запросов страницы отсортированы, ответы раскладываются по ним бинарным поиском без упаковки в Long
+        long[] requestIds = ownRequests.stream().mapToLong(ItemRequest::getId).sorted().toArray();
+        List<List<ResponseItemDto>> responseItems = new ArrayList<>(requestIds.length);
+        for (int i = 0; i < requestIds.length; i++) {
+            responseItems.add(new ArrayList<>());
+        }
+        List<Long> ids = Arrays.stream(requestIds).boxed().toList();
+        for (RequestItemDto item : itemRepository.findRequestItemDtosByRequestIdIn(ids)) {
+            responseItems.get(Arrays.binarySearch(requestIds, item.getRequestId()))
+                    .add(ItemMapper.toResponseItemDto(item));
+        }
 
-        //преобразуем map в список ItemRequestExtendedDto
-        return ownRequests.stream()
+        List<ItemRequestExtendedDto> requests = ownRequests.stream()
                 .map(itemRequest -> ItemRequestMapper.toItemrequestExtendedDto(itemRequest,
-                        responseItemMap.getOrDefault(itemRequest.getId(), List.of())))
-                .sorted((Comparator.comparing(ItemRequestExtendedDto::getCreated).reversed())).toList();
+                        responseItems.get(Arrays.binarySearch(requestIds, itemRequest.getId()))))
+                .toList();
+        return new ItemRequestPageDto<>(requests, nextCursor);
+    }
+
+    //вместо вещей-ответов только их число: один GROUP BY по items.request_id на страницу
+    @Override
+    public ItemRequestPageDto<ItemRequestSummaryDto> getOwnRequestSummaries(long userId, String cursor, int size) {
+        List<ItemRequest> ownRequests = findOwnPage(userId, cursor, size);
+        String nextCursor = nextCursor(ownRequests, size);
+        ownRequests = ownRequests.subList(0, Math.min(size, ownRequests.size()));
+        if (ownRequests.isEmpty()) {
+            return new ItemRequestPageDto<>(List.of(), null);
+        }
+
+        Map<Long, Long> responseCounts = new HashMap<>();
+        for (RequestResponseCountDto count : itemRepository.countByRequestIdIn(
+                ownRequests.stream().map(ItemRequest::getId).toList())) {
+            responseCounts.put(count.getRequestId(), count.getResponseCount());
+        }
+
+        List<ItemRequestSummaryDto> requests = ownRequests.stream()
+                .map(itemRequest -> ItemRequestMapper.toItemRequestSummaryDto(itemRequest,
+                        responseCounts.getOrDefault(itemRequest.getId(), 0L)))
+                .toList();
+        return new ItemRequestPageDto<>(requests, nextCursor);
     }
 
+    //страница запрашивается на один элемент больше, чтобы понять, есть ли следующая.
+    //Начало ленты читается из общего кэша, база нужна только за пределами его окна
     @Override
-    public List<ItemRequestDto> getAllRequests(long userId) {
+    public ItemRequestPageDto<ItemRequestDto> getAllRequests(long userId, String cursor, int size) {
+        validatePageSize(size);
         userService.checkUserExist(userId);
 
-        return itemRequestRepository.findItemRequestByRequesterIdNotOrderByCreatedDesc(userId).stream()
-                .map(ItemRequestMapper::toItemRequestDto).toList();
+        ItemRequestCursor after = cursor == null ? null : ItemRequestCursor.decode(cursor);
+        RequestFeedCache.FeedPage cached = requestFeedCache.read(userId, after, size + 1);
+        List<ItemRequestDto> requests = new ArrayList<>(cached.requests());
+
+        if (cached.exhausted()) {
+            Pageable pageable = PageRequest.of(0, size + 1 - requests.size());
+            ItemRequestCursor continueAfter = cached.continueAfter();
+            List<ItemRequest> rest = continueAfter == null
+                    ? itemRequestRepository.findFeedFirstPage(userId, pageable)
+                    : itemRequestRepository.findFeedPageAfter(userId, continueAfter.created(), continueAfter.id(),
+                    pageable);
+            rest.stream().map(ItemRequestMapper::toItemRequestDto).forEach(requests::add);
+        }
+
+        String nextCursor = null;
+        if (requests.size() > size) {
+            requests = requests.subList(0, size);
+            nextCursor = ItemRequestCursor.after(requests.getLast()).encode();
+        }
+        return new ItemRequestPageDto<>(requests, nextCursor);
     }
 
     @Override
     public ItemRequestExtendedDto getRequest(long userId, long requestId) {
         userService.checkUserExist(userId);
-        ItemRequest itemRequest = itemRequestRepository.findById(requestId)
-                .orElseThrow(() -> new NotFoundException("Запрос " + requestId + " не найден"));
+        List<ItemRequestDetailRowDto> rows = itemRequestRepository.findDetailRowsById(requestId);
+        if (rows.isEmpty()) {
+            throw new NotFoundException("Запрос " + requestId + " не найден");
+        }
+        return ItemRequestMapper.toItemrequestExtendedDto(rows);
+    }
+
+    //подборка считается заранее при сохранении вещей и запросов, здесь только читается
+    @Override
+    public List<ItemSuggestionDto> getSuggestions(long userId, long requestId) {
+        userService.checkUserExist(userId);
+        return requestItemMatcher.getSuggestions(findRequest(requestId));
+    }
 
-        List<ResponseItemDto> items = itemRepository.findAllByRequestId(requestId).stream()
-                .map(ItemMapper::toResponseItemDto).toList();
+    //на один запрос больше страницы, чтобы понять, есть ли следующая
+    private List<ItemRequest> findOwnPage(long userId, String cursor, int size) {
+        validatePageSize(size);
+        userService.checkUserExist(userId);
 
-        return ItemRequestMapper.toItemrequestExtendedDto(itemRequest, items);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        if (cursor == null) {
+            return itemRequestRepository.findOwnFirstPage(userId, pageable);
+        }
+        ItemRequestCursor after = ItemRequestCursor.decode(cursor);
+        return itemRequestRepository.findOwnPageAfter(userId, after.created(), after.id(), pageable);
     }
 
-    //метод группирует список Item по id запроса в map и преобразует item в ResponseItemDto
-    private Map<Long, List<ResponseItemDto>> toResponseItemMap(List<Item> itemsList) {
-        Map<Long, List<ResponseItemDto>> result = new HashMap<>();
-        for (Item item : itemsList) {
-            long itemId = item.getRequest().getId();
-            //computeIfAbsent возвращает сущ. значение если ключ существует, иначе создает новое значение для ключа
-            result.computeIfAbsent(itemId, key -> new ArrayList<>())
-                    .add(ItemMapper.toResponseItemDto(item));
+    private static String nextCursor(List<ItemRequest> page, int size) {
+        if (page.size() <= size) {
+            return null;
+        }
+        ItemRequest last = page.get(size - 1);
+        return new ItemRequestCursor(last.getCreated(), last.getId()).encode();
+    }
+
+    @Override
+    public SseEmitter subscribe(long userId) {
+        userService.checkUserExist(userId);
+        return requestEventBroadcaster.subscribe(userId);
+    }
+
+    private ItemRequest findRequest(long requestId) {
+        return itemRequestRepository.findById(requestId)
+                .filter(found -> !found.getRequester().isDeleted())
+                .orElseThrow(() -> new NotFoundException("Запрос " + requestId + " не найден"));
+    }
+
+    private void validatePageSize(int size) {
+        if (size < 1 || size > maxPageSize) {
+            log.warn("Некорректный размер страницы запросов: {}", size);
+            throw new BadRequestException("Размер страницы должен быть от 1 до " + maxPageSize);
         }
-        return result;
     }
 }
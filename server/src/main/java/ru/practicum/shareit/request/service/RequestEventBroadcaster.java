@@ -0,0 +1,165 @@
+package ru.practicum.shareit.request.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Рассылка новых запросов вещей подписчикам Server-Sent Events, вместо опроса GET /requests/all.
+//Запрос ставится в очередь каждого подписчика, кроме автора; очередь отправляет свой поток,
+//поэтому медленный клиент не задерживает ни создание запроса, ни остальных подписчиков.
+//Очередь ограничена: если подписчик не успевает ее разбирать, он отключается и переподключается сам.
+//Отправка идет в ограниченном пуле платформенных потоков: ResponseBodyEmitter.send синхронизирован
+//и закрепил бы виртуальный поток за несущим на все время записи медленному клиенту.
+@Slf4j
+@Component
+public class RequestEventBroadcaster {
+    private static final String EVENT_NAME = "request";
+
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final Executor executor;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public RequestEventBroadcaster(@Value("${shareit.request.events.timeout:30m}") Duration timeout,
+                                   @Value("${shareit.request.events.buffer-size:64}") int bufferSize,
+                                   @Value("${shareit.request.events.send-threads:8}") int sendThreads) {
+        this(timeout, bufferSize,
+                Executors.newFixedThreadPool(sendThreads, new CustomizableThreadFactory("request-events-")));
+    }
+
+    public RequestEventBroadcaster(Duration timeout, int bufferSize, Executor executor) {
+        this.timeoutMillis = timeout.toMillis();
+        this.bufferSize = bufferSize;
+        this.executor = executor;
+    }
+
+    public SseEmitter subscribe(long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        subscribers.add(subscriber);
+
+        Runnable unsubscribe = () -> subscribers.remove(subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
+    }
+
+    //запрос рассылается только после коммита, чтобы подписчики не увидели откаченный
+    public void publish(ItemRequestDto itemRequest) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            broadcast(itemRequest);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                broadcast(itemRequest);
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    //комментарий раз в интервал не дает прокси закрыть простаивающее соединение и выявляет отключившихся клиентов
+    @Scheduled(fixedRateString = "${shareit.request.events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().comment("ping"));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void broadcast(ItemRequestDto itemRequest) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.userId() != itemRequest.getRequesterId()) {
+                enqueue(subscriber, SseEmitter.event()
+                        .id(String.valueOf(itemRequest.getId()))
+                        .name(EVENT_NAME)
+                        .data(itemRequest));
+            }
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.buffer().offer(event)) {
+            log.debug("Подписчик {} не успевает получать запросы, отключаем", subscriber.userId());
+            disconnect(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    //отправка может блокироваться на медленном клиенте, поэтому закрывает соединение тот же поток,
+    //что отправляет: он сделает это, как только текущая отправка завершится
+    private void disconnect(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.closed().set(true);
+        subscriber.buffer().clear();
+        scheduleDrain(subscriber);
+    }
+
+    //у подписчика не больше одного отправляющего потока
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining().compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed().get() && (event = subscriber.buffer().poll()) != null) {
+                try {
+                    subscriber.emitter().send(event);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Подписчик {} отключился: {}", subscriber.userId(), e.getMessage());
+                    subscribers.remove(subscriber);
+                    subscriber.closed().set(true);
+                }
+            }
+            if (subscriber.closed().get()) {
+                subscriber.buffer().clear();
+                subscriber.emitter().complete();
+                return;
+            }
+            subscriber.draining().set(false);
+            //событие могло прийти между последним poll и сбросом флага
+        } while (!subscriber.buffer().isEmpty() && subscriber.draining().compareAndSet(false, true));
+    }
+
+    private record Subscriber(long userId, SseEmitter emitter, BlockingQueue<SseEmitter.SseEventBuilder> buffer,
+                              AtomicBoolean draining, AtomicBoolean closed) {
+        Subscriber(long userId, SseEmitter emitter, BlockingQueue<SseEmitter.SseEventBuilder> buffer) {
+            this(userId, emitter, buffer, new AtomicBoolean(), new AtomicBoolean());
+        }
+    }
+}
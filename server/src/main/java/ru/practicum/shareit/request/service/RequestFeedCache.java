@@ -0,0 +1,252 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.UserDeletedEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+//Общее для всех пользователей начало ленты запросов: кольцевой буфер последних запросов.
+//Буфер упорядочен от последнего элемента ленты к первому, новые запросы дописываются в хвост,
+//при переполнении вытесняется самый старый. Свои запросы пользователя отфильтровываются при чтении.
+//Инвариант: в буфере лежат все запросы ленты до границы окна включительно,
+//поэтому за пределами окна чтение продолжается из базы после границы.
+//Буфер заполняется после создания всех бинов, до запуска веб-сервера. Пока он не заполнен, лента читается
+//из базы, а добавленные запросы откладываются и дописываются в буфер после заполнения.
+@Slf4j
+@Component
+public class RequestFeedCache implements SmartInitializingSingleton {
+    //порядок ленты: created по убыванию, при равенстве id по возрастанию (как индекс ix_requests_created_id)
+    private static final Comparator<Entry> FEED_ORDER = Comparator.comparing(Entry::created).reversed()
+            .thenComparingLong(Entry::id);
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final Entry[] ring;
+    private int start;
+    private int size;
+    //последний запрос ленты, покрытый окном; null - окно покрывает ленту целиком
+    private Entry boundary;
+    private boolean warmedUp;
+    private final List<Entry> addedBeforeWarmUp = new ArrayList<>();
+
+    public RequestFeedCache(ItemRequestRepository itemRequestRepository,
+                            @Value("${shareit.request.feed.cache-size:1000}") int capacity) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.ring = new Entry[capacity];
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp();
+    }
+
+    public void warmUp() {
+        synchronized (this) {
+            warmedUp = false;
+        }
+        List<ItemRequest> head = itemRequestRepository.findFeedHead(PageRequest.of(0, ring.length));
+        synchronized (this) {
+            Arrays.fill(ring, null);
+            start = 0;
+            size = 0;
+            boundary = head.size() < ring.length ? null : Entry.of(head.getLast());
+            //запросы приходят в порядке ленты, а буфер хранит их в обратном
+            for (ItemRequest itemRequest : head.reversed()) {
+                ring[size++] = Entry.of(itemRequest);
+            }
+            //запрос, созданный во время чтения из базы, мог в него не попасть
+            warmedUp = true;
+            addedBeforeWarmUp.forEach(this::insert);
+            addedBeforeWarmUp.clear();
+        }
+        log.info("Лента запросов: в кэше {} последних запросов", head.size());
+    }
+
+    //незакоммиченный запрос не должен быть виден в ленте другим пользователям
+    public void add(ItemRequest itemRequest) {
+        Entry entry = Entry.of(itemRequest);
+        afterCommit(() -> insert(entry));
+    }
+
+    //запросы удаленного пользователя больше не показываются в ленте
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        List<Entry> removed = removeIf(entry -> entry.requesterId() == event.userId());
+        onRollback(() -> removed.forEach(this::insert));
+    }
+
+    //не больше limit запросов после cursor (с начала ленты, если cursor равен null), кроме запросов userId.
+    //exhausted - окно кончилось раньше, недостающее дочитывается из базы после continueAfter
+    public synchronized FeedPage read(long userId, ItemRequestCursor cursor, int limit) {
+        if (!warmedUp) {
+            return new FeedPage(List.of(), true, cursor);
+        }
+        List<ItemRequestDto> requests = new ArrayList<>(Math.min(limit, size));
+        int position = cursor == null ? size : countAfter(key(cursor));
+
+        for (int i = position - 1; i >= 0 && requests.size() < limit; i--) {
+            Entry entry = get(i);
+            if (entry.requesterId() != userId) {
+                requests.add(entry.toDto());
+            }
+        }
+
+        if (requests.size() == limit || boundary == null) {
+            return new FeedPage(requests, false, null);
+        }
+        //если курсор старше окна, дочитываем сразу от курсора
+        ItemRequestCursor continueAfter = cursor != null && FEED_ORDER.compare(key(cursor), boundary) > 0
+                ? cursor
+                : boundary.toCursor();
+        return new FeedPage(requests, true, continueAfter);
+    }
+
+    private synchronized void insert(Entry entry) {
+        if (!warmedUp) {
+            addedBeforeWarmUp.add(entry);
+            return;
+        }
+        int position = countAfter(entry);
+        if (position < size && get(position).id() == entry.id()) {
+            //запрос уже прочитан из базы при заполнении
+            return;
+        }
+        if (boundary != null && FEED_ORDER.compare(entry, boundary) > 0) {
+            //запрос дальше окна по ленте: он будет прочитан из базы
+            return;
+        }
+        if (size == ring.length && FEED_ORDER.compare(entry, get(0)) > 0) {
+            //запрос старше всего окна: окно больше не покрывает ленту целиком
+            boundary = get(0);
+            return;
+        }
+        boolean evict = size == ring.length;
+        if (evict) {
+            start = (start + 1) % ring.length;
+            size--;
+        }
+        int i = size++;
+        set(i, entry);
+        //обычно новый запрос - самый свежий, иначе сдвигаем его на место
+        while (i > 0 && FEED_ORDER.compare(get(i - 1), get(i)) < 0) {
+            Entry previous = get(i - 1);
+            set(i - 1, get(i));
+            set(i, previous);
+            i--;
+        }
+        if (evict) {
+            boundary = get(0);
+        }
+    }
+
+    private synchronized List<Entry> removeIf(Predicate<Entry> filter) {
+        List<Entry> removed = new ArrayList<>();
+        addedBeforeWarmUp.removeIf(entry -> filter.test(entry) && removed.add(entry));
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Entry entry = get(i);
+            if (filter.test(entry)) {
+                removed.add(entry);
+            } else {
+                set(kept++, entry);
+            }
+        }
+        for (int i = kept; i < size; i++) {
+            set(i, null);
+        }
+        size = kept;
+        return removed;
+    }
+
+    //число элементов буфера, которые идут в ленте после key; они лежат в начале буфера
+    private int countAfter(Entry key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (FEED_ORDER.compare(get(mid), key) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Entry key(ItemRequestCursor cursor) {
+        return new Entry(cursor.id(), null, 0, cursor.created());
+    }
+
+    private Entry get(int index) {
+        return ring[(start + index) % ring.length];
+    }
+
+    private void set(int index, Entry entry) {
+        ring[(start + index) % ring.length] = entry;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    //удаление применяется сразу, а при откате транзакции отменяется
+    private static void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    public record FeedPage(List<ItemRequestDto> requests, boolean exhausted, ItemRequestCursor continueAfter) {
+    }
+
+    private record Entry(long id, String description, long requesterId, LocalDateTime created) {
+        static Entry of(ItemRequest itemRequest) {
+            return new Entry(itemRequest.getId(), itemRequest.getDescription(),
+                    itemRequest.getRequester().getId(), itemRequest.getCreated());
+        }
+
+        ItemRequestCursor toCursor() {
+            return new ItemRequestCursor(created, id);
+        }
+
+        ItemRequestDto toDto() {
+            ItemRequestDto dto = new ItemRequestDto();
+            dto.setId(id);
+            dto.setDescription(description);
+            dto.setRequesterId(requesterId);
+            dto.setCreated(created);
+            return dto;
+        }
+    }
+}
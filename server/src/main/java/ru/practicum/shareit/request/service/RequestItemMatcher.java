@@ -0,0 +1,333 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemSuggestionDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.UserDeletedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+//Подбор доступных вещей к запросам по словам описаний.
+//Слова запросов и вещей лежат в инвертированных индексах: сохраненная вещь оценивается только по запросам
+//с общими словами, новый запрос - только по таким вещам. Лучшие совпадения каждого запроса хранятся готовыми.
+//Вес общего слова - idf: редкие слова значат больше частых.
+//Индекс меняется после коммита транзакции: пересчитанные подборки проще не откатывать, чем откатывать.
+//В индексе только свежие запросы (не больше max-requests и не старше max-age): старые вытесняются,
+//а подборка для них считается при обращении по индексу вещей.
+@Slf4j
+@Component
+public class RequestItemMatcher {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final Comparator<Suggestion> BEST_FIRST = Comparator.comparingDouble(Suggestion::score).reversed()
+            .thenComparingLong(Suggestion::itemId);
+
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final int maxSuggestions;
+    private final int maxRequests;
+    private final Duration maxAge;
+
+    private final Map<Long, RequestEntry> requests = new HashMap<>();
+    private final NavigableSet<RequestEntry> requestsByAge = new TreeSet<>(
+            Comparator.comparing(RequestEntry::created).thenComparingLong(RequestEntry::id));
+    private final Map<Long, ItemEntry> items = new HashMap<>();
+    private final Map<String, Set<Long>> requestsByToken = new HashMap<>();
+    private final Map<String, Set<Long>> itemsByToken = new HashMap<>();
+    private final Map<Long, List<Suggestion>> suggestions = new HashMap<>();
+    //запросы, в подборку которых попала вещь: из них она убирается, когда становится недоступной
+    private final Map<Long, Set<Long>> requestsBySuggestedItem = new HashMap<>();
+
+    public RequestItemMatcher(ItemRepository itemRepository,
+                              ItemRequestRepository itemRequestRepository,
+                              @Value("${shareit.request.suggestions.max:10}") int maxSuggestions,
+                              @Value("${shareit.request.suggestions.max-requests:10000}") int maxRequests,
+                              @Value("${shareit.request.suggestions.max-age:30d}") Duration maxAge) {
+        this.itemRepository = itemRepository;
+        this.itemRequestRepository = itemRequestRepository;
+        this.maxSuggestions = maxSuggestions;
+        this.maxRequests = maxRequests;
+        this.maxAge = maxAge;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void warmUp() {
+        requests.clear();
+        requestsByAge.clear();
+        items.clear();
+        requestsByToken.clear();
+        itemsByToken.clear();
+        suggestions.clear();
+        requestsBySuggestedItem.clear();
+
+        itemRepository.findAllAvailable().forEach(item -> addItem(ItemEntry.of(item)));
+        LocalDateTime oldest = LocalDateTime.now().minus(maxAge);
+        itemRequestRepository.findFeedHead(PageRequest.of(0, maxRequests)).stream()
+                .filter(request -> request.getCreated().isAfter(oldest))
+                .forEach(request -> addRequest(RequestEntry.of(request)));
+        requests.keySet().forEach(this::recompute);
+        log.info("Индекс подбора вещей: {} запросов, {} доступных вещей", requests.size(), items.size());
+    }
+
+    public void onItemSaved(Item item) {
+        ItemEntry entry = ItemEntry.of(item);
+        afterCommit(() -> indexItem(entry));
+    }
+
+    public void onRequestCreated(ItemRequest itemRequest) {
+        RequestEntry entry = RequestEntry.of(itemRequest);
+        afterCommit(() -> indexRequest(entry));
+    }
+
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        afterCommit(() -> removeUser(event.userId()));
+    }
+
+    public synchronized List<ItemSuggestionDto> getSuggestions(ItemRequest itemRequest) {
+        List<Suggestion> found = suggestions.get(itemRequest.getId());
+        if (found == null) {
+            found = findBest(RequestEntry.of(itemRequest));
+        }
+        return found.stream()
+                .map(suggestion -> {
+                    ItemEntry item = items.get(suggestion.itemId());
+                    return new ItemSuggestionDto(item.id(), item.name(), item.ownerId(), suggestion.score());
+                })
+                .toList();
+    }
+
+    private synchronized void indexItem(ItemEntry entry) {
+        Set<Long> affected = removeItem(entry.id());
+        if (entry.available()) {
+            addItem(entry);
+            for (Map.Entry<Long, Double> score : score(entry.tokens(), requestsByToken).entrySet()) {
+                RequestEntry request = requests.get(score.getKey());
+                if (request.requesterId() != entry.ownerId()) {
+                    offer(request.id(), entry.id(), score.getValue());
+                }
+            }
+        }
+        //вещь вытеснила себя из подборок, где ее больше нет: дополняем их следующими кандидатами
+        for (long requestId : affected) {
+            if (!requestsBySuggestedItem.getOrDefault(entry.id(), Set.of()).contains(requestId)) {
+                recompute(requestId);
+            }
+        }
+    }
+
+    private synchronized void indexRequest(RequestEntry entry) {
+        addRequest(entry);
+        recompute(entry.id());
+        evictOldRequests();
+    }
+
+    @Scheduled(cron = "${shareit.request.suggestions.eviction-cron:0 0 * * * *}")
+    public synchronized void evictOldRequests() {
+        LocalDateTime oldest = LocalDateTime.now().minus(maxAge);
+        while (!requestsByAge.isEmpty() && (requests.size() > maxRequests
+                || !requestsByAge.first().created().isAfter(oldest))) {
+            removeRequest(requestsByAge.first().id());
+        }
+    }
+
+    private synchronized void removeUser(long userId) {
+        List<Long> userRequests = requests.values().stream()
+                .filter(request -> request.requesterId() == userId)
+                .map(RequestEntry::id)
+                .toList();
+        userRequests.forEach(this::removeRequest);
+
+        List<Long> userItems = items.values().stream()
+                .filter(item -> item.ownerId() == userId)
+                .map(ItemEntry::id)
+                .toList();
+        Set<Long> affected = new HashSet<>();
+        for (long itemId : userItems) {
+            affected.addAll(removeItem(itemId));
+        }
+        affected.forEach(this::recompute);
+    }
+
+    private void addItem(ItemEntry entry) {
+        items.put(entry.id(), entry);
+        entry.tokens().forEach(token -> itemsByToken.computeIfAbsent(token, key -> new HashSet<>()).add(entry.id()));
+    }
+
+    private void addRequest(RequestEntry entry) {
+        requests.put(entry.id(), entry);
+        requestsByAge.add(entry);
+        entry.tokens().forEach(token -> requestsByToken.computeIfAbsent(token, key -> new HashSet<>()).add(entry.id()));
+    }
+
+    private void removeRequest(long requestId) {
+        RequestEntry request = requests.remove(requestId);
+        requestsByAge.remove(request);
+        unindex(requestsByToken, request.tokens(), requestId);
+        setSuggestions(requestId, List.of());
+        suggestions.remove(requestId);
+    }
+
+    //возвращает запросы, из подборок которых убрана вещь
+    private Set<Long> removeItem(long itemId) {
+        ItemEntry old = items.remove(itemId);
+        if (old != null) {
+            unindex(itemsByToken, old.tokens(), itemId);
+        }
+        Set<Long> affected = requestsBySuggestedItem.remove(itemId);
+        if (affected == null) {
+            return Set.of();
+        }
+        for (long requestId : affected) {
+            suggestions.get(requestId).removeIf(suggestion -> suggestion.itemId() == itemId);
+        }
+        return affected;
+    }
+
+    private void recompute(long requestId) {
+        RequestEntry request = requests.get(requestId);
+        if (request == null) {
+            return;
+        }
+        setSuggestions(requestId, findBest(request));
+    }
+
+    private List<Suggestion> findBest(RequestEntry request) {
+        return score(request.tokens(), itemsByToken).entrySet().stream()
+                .filter(score -> items.get(score.getKey()).ownerId() != request.requesterId())
+                .map(score -> new Suggestion(score.getKey(), score.getValue()))
+                .sorted(BEST_FIRST)
+                .limit(maxSuggestions)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private void offer(long requestId, long itemId, double score) {
+        List<Suggestion> current = suggestions.computeIfAbsent(requestId, key -> new ArrayList<>());
+        Suggestion candidate = new Suggestion(itemId, score);
+        if (current.size() == maxSuggestions && BEST_FIRST.compare(candidate, current.getLast()) > 0) {
+            return;
+        }
+        List<Suggestion> updated = new ArrayList<>(current);
+        updated.add(candidate);
+        updated.sort(BEST_FIRST);
+        if (updated.size() > maxSuggestions) {
+            updated.removeLast();
+        }
+        setSuggestions(requestId, updated);
+    }
+
+    private void setSuggestions(long requestId, List<Suggestion> updated) {
+        for (Suggestion old : suggestions.getOrDefault(requestId, List.of())) {
+            Set<Long> suggestedIn = requestsBySuggestedItem.get(old.itemId());
+            if (suggestedIn != null) {
+                suggestedIn.remove(requestId);
+                if (suggestedIn.isEmpty()) {
+                    requestsBySuggestedItem.remove(old.itemId());
+                }
+            }
+        }
+        for (Suggestion suggestion : updated) {
+            requestsBySuggestedItem.computeIfAbsent(suggestion.itemId(), key -> new HashSet<>()).add(requestId);
+        }
+        suggestions.put(requestId, updated);
+    }
+
+    //сумма idf общих слов для каждого документа индекса, в котором есть хотя бы одно из слов
+    private Map<Long, Double> score(Set<String> tokens, Map<String, Set<Long>> index) {
+        int documents = requests.size() + items.size();
+        Map<Long, Double> scores = new HashMap<>();
+        for (String token : tokens) {
+            Set<Long> postings = index.get(token);
+            if (postings == null) {
+                continue;
+            }
+            int frequency = requestsByToken.getOrDefault(token, Set.of()).size()
+                    + itemsByToken.getOrDefault(token, Set.of()).size();
+            double idf = Math.log(1 + (double) documents / frequency);
+            for (long id : postings) {
+                scores.merge(id, idf, Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    private static void unindex(Map<String, Set<Long>> index, Set<String> tokens, long id) {
+        for (String token : tokens) {
+            Set<Long> postings = index.get(token);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    index.remove(token);
+                }
+            }
+        }
+    }
+
+    private static Set<String> tokenize(String... texts) {
+        Set<String> tokens = new HashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                    .filter(token -> token.length() >= MIN_TOKEN_LENGTH)
+                    .forEach(tokens::add);
+        }
+        return tokens;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Suggestion(long itemId, double score) {
+    }
+
+    private record ItemEntry(long id, String name, long ownerId, boolean available, Set<String> tokens) {
+        static ItemEntry of(Item item) {
+            return new ItemEntry(item.getId(), item.getName(), item.getOwner().getId(), item.isAvailable(),
+                    tokenize(item.getName(), item.getDescription()));
+        }
+    }
+
+    private record RequestEntry(long id, long requesterId, LocalDateTime created, Set<String> tokens) {
+        static RequestEntry of(ItemRequest itemRequest) {
+            return new RequestEntry(itemRequest.getId(), itemRequest.getRequester().getId(), itemRequest.getCreated(),
+                    tokenize(itemRequest.getDescription()));
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package ru.practicum.shareit.user.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
 import ru.practicum.shareit.user.dto.UserUpdateDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
@@ -17,6 +22,16 @@ public class UserController {
         return userService.create(userDto);
     }
 
+    @PostMapping(path = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public UserImportResultDto importUsers(InputStream body) {
+        return userService.importUsers(body);
+    }
+
+    @GetMapping
+    public List<UserDto> readAll(@RequestParam List<Long> ids) {
+        return userService.getAll(ids);
+    }
+
     @GetMapping("{id}")
     public UserDto read(@PathVariable long id) {
         return userService.get(id);
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.user.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//errors содержит не больше shareit.user.import.max-reported-errors строк, failed - полное число отклоненных строк
+@Data
+public class UserImportResultDto {
+    private long imported;
+    private long failed;
+    private List<UserImportErrorDto> errors = new ArrayList<>();
+}
@@ -8,17 +8,22 @@ import java.util.Objects;
 @Getter
 @Setter
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = "UQ_USER_EMAIL", columnNames = "email"))
 @NoArgsConstructor
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private long id;
 
     private String name;
 
     private String email;
 
+    //удаленный пользователь скрыт из чтения, его данные удаляет UserPurgeJob
+    @Column(nullable = false)
+    private boolean deleted;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,5 @@
+package ru.practicum.shareit.user.model;
+
+//Публикуется при удалении пользователя, чтобы кэши других модулей убрали его данные
+public record UserDeletedEvent(long userId) {
+}
@@ -0,0 +1,6 @@
+package ru.practicum.shareit.user.model;
+
+//Публикуется, когда данные удаленного пользователя вычищены из базы (см. UserPurgeJob),
+//чтобы их убрали и хранилища вне базы
+public record UserPurgedEvent(long userId) {
+}
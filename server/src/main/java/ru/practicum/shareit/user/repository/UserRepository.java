@@ -1,11 +1,47 @@
 package ru.practicum.shareit.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.user.dto.ShortUserDto;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface UserRepository extends JpaRepository<User, Long> {
+    //удаленные пользователи не видны через findById и existsById
+    @Override
+    @Query("SELECT u FROM User u WHERE u.id = :id AND u.deleted = false")
+    Optional<User> findById(@Param("id") Long id);
+
+    @Override
+    @Query("SELECT COUNT(u) > 0 FROM User u WHERE u.id = :id AND u.deleted = false")
+    boolean existsById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.deleted = true WHERE u.id = :id")
+    void markDeleted(@Param("id") long id);
+
     boolean existsByEmail(String email);
 
-    ShortUserDto findShortUserDtoById(long id);
+    @Query("SELECT u.email FROM User u")
+    List<String> findAllEmails();
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findEmailsByEmailIn(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT u.id AS id, u.name AS name FROM User u WHERE u.id = :id AND u.deleted = false")
+    ShortUserDto findShortUserDtoById(@Param("id") long id);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids AND u.deleted = true")
+    List<Long> findDeletedIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new ru.practicum.shareit.user.dto.UserDto(u.id, u.name, u.email) " +
+            "FROM User u " +
+            "WHERE u.id IN :ids AND u.deleted = false")
+    List<UserDto> findUserDtosByIdIn(@Param("ids") Collection<Long> ids);
 }
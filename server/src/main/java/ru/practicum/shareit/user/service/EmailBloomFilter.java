@@ -0,0 +1,88 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Фильтр Блума по email зарегистрированных пользователей.
+//Ответ "точно нет" позволяет не проверять email запросом к базе: уникальность все равно гарантирует
+//ограничение UQ_USER_EMAIL. Удаление пользователей фильтр не учитывает, это дает лишь лишние запросы.
+@Slf4j
+@Component
+public class EmailBloomFilter {
+    private final UserRepository userRepository;
+    private final int bitCount;
+    private final int hashCount;
+    private volatile AtomicLongArray bits;
+
+    public EmailBloomFilter(UserRepository userRepository,
+                            @Value("${shareit.user.email-filter.expected-insertions:1000000}") int expectedInsertions,
+                            @Value("${shareit.user.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        double ln2 = Math.log(2);
+        this.bitCount = (int) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+        this.bits = new AtomicLongArray((bitCount + 63) / 64);
+    }
+
+    //новый массив заполняется целиком и только потом подменяет старый
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<String> emails = userRepository.findAllEmails();
+        AtomicLongArray rebuilt = new AtomicLongArray(bits.length());
+        for (String email : emails) {
+            add(rebuilt, email);
+        }
+        bits = rebuilt;
+        log.info("Фильтр email пользователей заполнен: {} адресов", emails.size());
+    }
+
+    public void add(String email) {
+        add(bits, email);
+    }
+
+    public boolean mightContain(String email) {
+        AtomicLongArray current = bits;
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((current.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(AtomicLongArray target, String email) {
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            target.getAndUpdate(bit >>> 6, word -> word | mask);
+        }
+    }
+
+    //64-битный FNV-1a с финальным перемешиванием, из него получаются два независимых 32-битных хэша
+    private static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : email.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
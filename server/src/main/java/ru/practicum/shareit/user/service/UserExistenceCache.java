@@ -0,0 +1,71 @@
+package ru.practicum.shareit.user.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+//Ограниченный кэш результатов проверки существования пользователя (LRU).
+//Существующие пользователи хранятся долго, отсутствующие - недолго, чтобы не пропустить только что созданных.
+@Component
+public class UserExistenceCache {
+    private final long positiveTtlMillis;
+    private final long negativeTtlMillis;
+    private final Map<Long, Entry> entries;
+
+    public UserExistenceCache(@Value("${shareit.user.exists-cache.max-entries:100000}") int maxEntries,
+                              @Value("${shareit.user.exists-cache.positive-ttl:10m}") Duration positiveTtl,
+                              @Value("${shareit.user.exists-cache.negative-ttl:5s}") Duration negativeTtl) {
+        this.positiveTtlMillis = positiveTtl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean exists(long userId, LongPredicate loader) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = entries.get(userId);
+            if (entry != null && entry.expiresAtMillis() > now) {
+                return entry.exists();
+            }
+        }
+
+        boolean exists = loader.test(userId);
+        long ttl = exists ? positiveTtlMillis : negativeTtlMillis;
+        synchronized (this) {
+            entries.put(userId, new Entry(exists, now + ttl));
+        }
+        return exists;
+    }
+
+    //запись удаляется сразу и еще раз после завершения транзакции,
+    //чтобы не осталось значения, прочитанного параллельным запросом до коммита
+    public void invalidate(long userId) {
+        remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(userId);
+                }
+            });
+        }
+    }
+
+    private synchronized void remove(long userId) {
+        entries.remove(userId);
+    }
+
+    private record Entry(boolean exists, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,194 @@
+package ru.practicum.shareit.user.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportErrorDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserBatchRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+//Массовый импорт пользователей из NDJSON: одна строка - один объект {"name": ..., "email": ...}.
+//Тело читается потоково, в памяти держится только текущая пачка строк. Каждая пачка проверяется
+//одним запросом email и вставляется JDBC-батчем в своей транзакции; ошибочные строки пропускаются.
+@Slf4j
+@Component
+public class UserImporter {
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\s]+@[^@\\s]+$");
+    private static final int MAX_NAME_LENGTH = 200;
+
+    private final ObjectMapper objectMapper;
+    private final UserRepository userRepository;
+    private final UserBatchRepository userBatchRepository;
+    private final UserExistenceCache userExistenceCache;
+    private final EmailBloomFilter emailBloomFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public UserImporter(ObjectMapper objectMapper,
+                        UserRepository userRepository,
+                        UserBatchRepository userBatchRepository,
+                        UserExistenceCache userExistenceCache,
+                        EmailBloomFilter emailBloomFilter,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${shareit.user.import.chunk-size:1000}") int chunkSize,
+                        @Value("${shareit.user.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.objectMapper = objectMapper;
+        this.userRepository = userRepository;
+        this.userBatchRepository = userBatchRepository;
+        this.userExistenceCache = userExistenceCache;
+        this.emailBloomFilter = emailBloomFilter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public UserImportResultDto importUsers(InputStream body) {
+        UserImportResultDto result = new UserImportResultDto();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Row row = parse(line, lineNumber, result);
+                if (row == null) {
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            //уже вставленные пачки остаются, клиент по отчету понимает, с какой строки продолжить
+            log.warn("Импорт пользователей прерван на строке {}: {}", lineNumber + 1, e.getMessage());
+            fail(result, lineNumber + 1, "Не удалось прочитать тело запроса: " + e.getMessage());
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+
+        log.info("Импорт пользователей: добавлено {}, отклонено {}", result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private Row parse(String line, long lineNumber, UserImportResultDto result) {
+        UserDto dto;
+        try {
+            dto = objectMapper.readValue(line, UserDto.class);
+        } catch (JsonProcessingException e) {
+            fail(result, lineNumber, "Некорректный JSON");
+            return null;
+        }
+
+        String name = dto.getName();
+        if (name == null || name.isBlank() || name.length() > MAX_NAME_LENGTH) {
+            fail(result, lineNumber, "Имя должно быть от 1 до " + MAX_NAME_LENGTH + " символов");
+            return null;
+        }
+        String email = dto.getEmail();
+        if (email == null || !EMAIL_PATTERN.matcher(email).matches()) {
+            fail(result, lineNumber, "Некорректный email");
+            return null;
+        }
+        return new Row(lineNumber, name, email);
+    }
+
+    private void importChunk(List<Row> chunk, UserImportResultDto result) {
+        //в базе проверяются только email, которые могут там быть по фильтру Блума
+        Set<String> candidates = chunk.stream()
+                .map(Row::email)
+                .filter(emailBloomFilter::mightContain)
+                .collect(Collectors.toSet());
+        Set<String> existing = candidates.isEmpty()
+                ? Set.of()
+                : new HashSet<>(userRepository.findEmailsByEmailIn(candidates));
+
+        Set<String> seen = new HashSet<>();
+        List<Row> accepted = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existing.contains(row.email()) || !seen.add(row.email())) {
+                fail(result, row.line(), "Email " + row.email() + " уже существует");
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<User> users = accepted.stream().map(Row::toUser).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> userBatchRepository.insertAll(users));
+            users.forEach(user -> registerImported(user, result));
+        } catch (DataIntegrityViolationException e) {
+            //email занят параллельной регистрацией: пачка откачена, вставляем ее строки по одной
+            log.warn("Пачка импорта пользователей отклонена базой, вставка по одной строке: {}",
+                    e.getMostSpecificCause().getMessage());
+            for (Row row : accepted) {
+                importSingle(row, result);
+            }
+        }
+    }
+
+    private void importSingle(Row row, UserImportResultDto result) {
+        User user = row.toUser();
+        try {
+            transactionTemplate.executeWithoutResult(status -> userBatchRepository.insertAll(List.of(user)));
+            registerImported(user, result);
+        } catch (DataIntegrityViolationException e) {
+            fail(result, row.line(), UserServiceImpl.isEmailConstraintViolation(e)
+                    ? "Email " + row.email() + " уже существует"
+                    : e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void registerImported(User user, UserImportResultDto result) {
+        emailBloomFilter.add(user.getEmail());
+        //в кэше мог остаться отрицательный результат проверки для этого id
+        userExistenceCache.invalidate(user.getId());
+        result.setImported(result.getImported() + 1);
+    }
+
+    private void fail(UserImportResultDto result, long lineNumber, String error) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new UserImportErrorDto(lineNumber, error));
+        }
+    }
+
+    private record Row(long line, String name, String email) {
+        User toUser() {
+            User user = new User();
+            user.setName(name);
+            user.setEmail(email);
+            return user;
+        }
+    }
+}
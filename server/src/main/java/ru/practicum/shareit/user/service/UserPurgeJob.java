@@ -0,0 +1,189 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.BookingsPurgedEvent;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingArchive;
+import ru.practicum.shareit.user.model.UserPurgedEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Фоновое удаление данных пользователей, помеченных удаленными.
+//За один запуск удаляется одна пачка строк одного шага; пауза между запусками ограничивает нагрузку на базу.
+//Каждая пачка - отдельная короткая транзакция, поэтому блокировки не держатся долго.
+//Бронирования сначала читаются, а после удаления публикуется BookingsPurgedEvent: по нему их вычитают счетчики
+//и индекс права на отзыв. Вместе с самим пользователем удаляются его архивные бронирования (UserPurgedEvent).
+@Slf4j
+@Component
+public class UserPurgeJob {
+    private static final String PENDING_GAUGE = "shareit.users.purge.pending";
+    private static final String ROWS_COUNTER = "shareit.users.purge.rows";
+    private static final String NEXT_USER = "SELECT id FROM users WHERE deleted = TRUE ORDER BY id LIMIT 1";
+    private static final String COUNT_PENDING = "SELECT COUNT(*) FROM users WHERE deleted = TRUE";
+    private static final String DELETE_USER = "DELETE FROM users WHERE id = ? AND deleted = TRUE";
+    private static final String DELETE_BOOKINGS = "DELETE FROM bookings WHERE id IN (";
+    private static final String BOOKING_ROWS = "SELECT b.id, b.start_date, b.end_date, b.item_id, b.booker_id, " +
+            "i.owner_id, b.status FROM bookings b JOIN items i ON i.id = b.item_id ";
+
+    //шаги выполняются по порядку: сначала строки, которые ссылаются на вещи, бронирования и запросы пользователя
+    private static final List<Step> STEPS = List.of(
+            new Step("comments", "DELETE FROM comments WHERE id IN " +
+                    "(SELECT id FROM comments WHERE author_id = ? LIMIT ?)"),
+            new Step("comments", "DELETE FROM comments WHERE id IN " +
+                    "(SELECT c.id FROM comments c JOIN items i ON i.id = c.item_id WHERE i.owner_id = ? LIMIT ?)"),
+            new Step("waitlist", "DELETE FROM waitlist WHERE id IN " +
+                    "(SELECT id FROM waitlist WHERE booker_id = ? LIMIT ?)"),
+            new Step("waitlist", "DELETE FROM waitlist WHERE id IN " +
+                    "(SELECT w.id FROM waitlist w JOIN items i ON i.id = w.item_id WHERE i.owner_id = ? LIMIT ?)"),
+            new Step("bookings", BOOKING_ROWS + "WHERE b.booker_id = ? LIMIT ?", true),
+            new Step("bookings", BOOKING_ROWS + "WHERE i.owner_id = ? LIMIT ?", true),
+            new Step("items", "UPDATE items SET request_id = NULL WHERE id IN " +
+                    "(SELECT i.id FROM items i JOIN requests r ON r.id = i.request_id WHERE r.requester_id = ? LIMIT ?)"),
+            new Step("items", "DELETE FROM items WHERE id IN " +
+                    "(SELECT id FROM items WHERE owner_id = ? LIMIT ?)"),
+            new Step("requests", "DELETE FROM requests WHERE id IN " +
+                    "(SELECT id FROM requests WHERE requester_id = ? LIMIT ?)")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingArchive bookingArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final AtomicLong pendingUsers = new AtomicLong();
+
+    private long currentUserId = -1;
+    private int currentStep;
+
+    public UserPurgeJob(JdbcTemplate jdbcTemplate,
+                        BookingArchive bookingArchive,
+                        PlatformTransactionManager transactionManager,
+                        ApplicationEventPublisher eventPublisher,
+                        MeterRegistry meterRegistry,
+                        @Value("${shareit.user.purge.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookingArchive = bookingArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        Gauge.builder(PENDING_GAUGE, pendingUsers, AtomicLong::get)
+                .description("Пользователи, помеченные удаленными, данные которых еще не удалены")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.user.purge.delay-ms:200}")
+    public synchronized void purgeNextBatch() {
+        List<Long> userIds = jdbcTemplate.queryForList(NEXT_USER, Long.class);
+        if (userIds.isEmpty()) {
+            pendingUsers.set(0);
+            return;
+        }
+        long userId = userIds.getFirst();
+        if (userId != currentUserId) {
+            currentUserId = userId;
+            currentStep = 0;
+            pendingUsers.set(jdbcTemplate.queryForObject(COUNT_PENDING, Long.class));
+        }
+
+        //пустые шаги пропускаются в том же запуске, пауза нужна только после реального удаления
+        while (currentStep < STEPS.size()) {
+            Step step = STEPS.get(currentStep);
+            int rows = step.selectsBookings() ? purgeBookings(step.sql(), userId)
+                    : jdbcTemplate.update(step.sql(), userId, batchSize);
+            if (rows > 0) {
+                countRows(step.table(), rows);
+                return;
+            }
+            currentStep++;
+        }
+
+        purgeUser(userId);
+        countRows("users", 1);
+        pendingUsers.decrementAndGet();
+        currentUserId = -1;
+        log.info("Данные пользователя {} удалены", userId);
+    }
+
+    private int purgeBookings(String sql, long userId) {
+        return transactionTemplate.execute(status -> {
+            List<ArchivedBooking> bookings = jdbcTemplate.query(sql, (rs, rowNum) -> new ArchivedBooking(
+                    rs.getLong("id"),
+                    rs.getObject("start_date", LocalDateTime.class),
+                    rs.getObject("end_date", LocalDateTime.class),
+                    rs.getLong("item_id"),
+                    rs.getLong("booker_id"),
+                    rs.getLong("owner_id"),
+                    Status.valueOf(rs.getString("status"))), userId, batchSize);
+            if (bookings.isEmpty()) {
+                return 0;
+            }
+            jdbcTemplate.update(deleteBookings(bookings.size()),
+                    bookings.stream().map(ArchivedBooking::getId).toArray());
+            //архивированные строки вычитаются один раз, вместе с архивом пользователя
+            eventPublisher.publishEvent(new BookingsPurgedEvent(bookings.stream()
+                    .filter(booking -> !bookingArchive.contains(booking.getId()))
+                    .toList()));
+            return bookings.size();
+        });
+    }
+
+    //сегменты архива переписываются подписчиком UserPurgedEvent после коммита
+    private void purgeUser(long userId) {
+        Map<Long, ArchivedBooking> archived = new HashMap<>();
+        bookingArchive.findAllByBookerId(userId).forEach(booking -> archived.put(booking.getId(), booking));
+        bookingArchive.findAllByOwnerId(userId).forEach(booking -> archived.put(booking.getId(), booking));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_USER, userId);
+            if (!archived.isEmpty()) {
+                eventPublisher.publishEvent(new BookingsPurgedEvent(List.copyOf(archived.values())));
+            }
+            eventPublisher.publishEvent(new UserPurgedEvent(userId));
+        });
+    }
+
+    //все SQL задачи с параметрами-заполнителями, для проверки планов запросов
+    public static List<String> getStatements() {
+        List<String> statements = new ArrayList<>(List.of(NEXT_USER, COUNT_PENDING, DELETE_USER, deleteBookings(2)));
+        STEPS.forEach(step -> statements.add(step.sql()));
+        return statements;
+    }
+
+    private static String deleteBookings(int count) {
+        return DELETE_BOOKINGS + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    private void countRows(String table, int rows) {
+        Counter.builder(ROWS_COUNTER)
+                .description("Строки, удаленные при очистке данных удаленных пользователей")
+                .tag("table", table)
+                .register(meterRegistry)
+                .increment(rows);
+    }
+
+    //selectsBookings: sql выбирает строки бронирований, которые удаляются отдельным запросом
+    private record Step(String table, String sql, boolean selectsBookings) {
+        Step(String table, String sql) {
+            this(table, sql, false);
+        }
+    }
+}
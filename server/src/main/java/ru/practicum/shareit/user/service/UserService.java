@@ -1,13 +1,21 @@
 package ru.practicum.shareit.user.service;
 
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
 import ru.practicum.shareit.user.dto.UserUpdateDto;
 
+import java.io.InputStream;
+import java.util.List;
+
 public interface UserService {
     UserDto create(UserDto userDto);
 
+    UserImportResultDto importUsers(InputStream body);
+
     UserDto get(long userId);
 
+    List<UserDto> getAll(List<Long> userIds);
+
     UserDto update(UserUpdateDto userUpdateDto, long userId);
 
     void delete(long userId);
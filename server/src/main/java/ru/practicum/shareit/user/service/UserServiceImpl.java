@@ -1,30 +1,73 @@
 package ru.practicum.shareit.user.service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.exceptions.BadRequestException;
 import ru.practicum.shareit.common.exceptions.NotFoundException;
 import ru.practicum.shareit.common.exceptions.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
 import ru.practicum.shareit.user.dto.UserUpdateDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserDeletedEvent;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.InputStream;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Slf4j
-@RequiredArgsConstructor
 @Service
 @Transactional
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
+    private final EmailBloomFilter emailBloomFilter;
+    private final UserImporter userImporter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxBatchIds;
+
+    public UserServiceImpl(UserRepository userRepository,
+                           UserExistenceCache userExistenceCache,
+                           EmailBloomFilter emailBloomFilter,
+                           UserImporter userImporter,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${shareit.user.batch-lookup.max-ids:100}") int maxBatchIds) {
+        this.userRepository = userRepository;
+        this.userExistenceCache = userExistenceCache;
+        this.emailBloomFilter = emailBloomFilter;
+        this.userImporter = userImporter;
+        this.eventPublisher = eventPublisher;
+        this.maxBatchIds = maxBatchIds;
+    }
 
     @Override
     public UserDto create(UserDto userDto) {
         User user = UserMapper.toUser(userDto);
         String email = userDto.getEmail();
         validateEmailUnique(email);
-        return UserMapper.toUserDto(userRepository.save(user));
+        user = saveUser(user);
+        //в кэше мог остаться отрицательный результат проверки для этого id
+        userExistenceCache.invalidate(user.getId());
+        return UserMapper.toUserDto(user);
+    }
+
+    //каждая пачка импорта коммитится в своей транзакции, общая транзакция не нужна
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public UserImportResultDto importUsers(InputStream body) {
+        return userImporter.importUsers(body);
     }
 
     @Transactional(readOnly = true)
@@ -36,6 +79,30 @@ public class UserServiceImpl implements UserService {
         return UserMapper.toUserDto(user);
     }
 
+    //отсутствующие id пропускаются, порядок ответа совпадает с порядком id в запросе
+    @Transactional(readOnly = true)
+    @Override
+    public List<UserDto> getAll(List<Long> userIds) {
+        if (userIds.size() > maxBatchIds) {
+            log.warn("Запрошено слишком много пользователей: {}", userIds.size());
+            throw new BadRequestException("За один запрос можно получить не больше " + maxBatchIds +
+                    " пользователей");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, UserDto> users = userRepository.findUserDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(UserDto::getId, Function.identity()));
+
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     @Override
     public UserDto update(UserUpdateDto userUpdateDto, long userId) {
         String newEmail = userUpdateDto.getEmail();
@@ -53,27 +120,56 @@ public class UserServiceImpl implements UserService {
             user.setName(newName);
         }
 
-        return UserMapper.toUserDto(userRepository.save(user));
+        return UserMapper.toUserDto(saveUser(user));
     }
 
     @Override
     public void delete(long userId) {
         checkUserExist(userId);
-        userRepository.deleteById(userId);
+        //зависимые данные удаляются в фоне пачками, чтобы не держать блокировки долго
+        userRepository.markDeleted(userId);
+        userExistenceCache.invalidate(userId);
+        eventPublisher.publishEvent(new UserDeletedEvent(userId));
     }
 
     @Override
     public void checkUserExist(long userId) {
-        if (!userRepository.existsById(userId)) {
+        if (!userExistenceCache.exists(userId, userRepository::existsById)) {
             log.warn("При запросе данных пользователя возникла ошибка: Пользователь не найден");
             throw new NotFoundException("Пользователь " + userId + " не найден");
         }
     }
 
+    //email, которого точно нет в фильтре, не проверяется запросом: дубликат отсечет ограничение UQ_USER_EMAIL
     private void validateEmailUnique(String email) {
+        if (email == null || !emailBloomFilter.mightContain(email)) {
+            return;
+        }
         if (userRepository.existsByEmail(email)) {
             log.warn("При проверке email возникла ошибка: email уже существует");
             throw new ValidationException("Email " + email + " уже существует");
         }
     }
+
+    private User saveUser(User user) {
+        String email = user.getEmail();
+        try {
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailConstraintViolation(e)) {
+                log.warn("При сохранении пользователя возникла ошибка: email уже существует");
+                throw new ValidationException("Email " + email + " уже существует");
+            }
+            throw e;
+        }
+        if (email != null) {
+            emailBloomFilter.add(email);
+        }
+        return user;
+    }
+
+    static boolean isEmailConstraintViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toUpperCase().contains("UQ_USER_EMAIL");
+    }
 }
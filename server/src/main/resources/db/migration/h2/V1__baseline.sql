@@ -2,6 +2,7 @@ CREATE TABLE IF NOT EXISTS users (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   name VARCHAR(255) NOT NULL,
   email VARCHAR(512) NOT NULL,
+  deleted BOOLEAN NOT NULL DEFAULT FALSE,
   CONSTRAINT pk_user PRIMARY KEY (id),
   CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
@@ -14,6 +15,9 @@ CREATE TABLE IF NOT EXISTS requests (
     CONSTRAINT pk_request PRIMARY KEY (id)
 );
 
+CREATE INDEX IF NOT EXISTS ix_requests_created_id ON requests (created DESC, id);
+CREATE INDEX IF NOT EXISTS ix_requests_requester_id_created ON requests (requester_id, created DESC, id);
+
 CREATE TABLE IF NOT EXISTS items (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   name VARCHAR(255) NOT NULL,
@@ -24,6 +28,8 @@ CREATE TABLE IF NOT EXISTS items (
   CONSTRAINT pk_item PRIMARY KEY (id)
 );
 
+CREATE INDEX IF NOT EXISTS ix_items_request_id ON items (request_id);
+
 CREATE TABLE IF NOT EXISTS bookings (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
@@ -34,6 +40,28 @@ CREATE TABLE IF NOT EXISTS bookings (
     CONSTRAINT pk_booking PRIMARY KEY (id)
 );
 
+CREATE TABLE IF NOT EXISTS waitlist (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    item_id BIGINT NOT NULL REFERENCES items(id) ON delete CASCADE,
+    booker_id BIGINT NOT NULL REFERENCES users(id) ON delete CASCADE,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_waitlist PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_waitlist_item_id ON waitlist (item_id, id);
+
+CREATE TABLE IF NOT EXISTS booking_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    booking_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    status VARCHAR(8) NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_booking_event PRIMARY KEY (id)
+);
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     text VARCHAR(512) NOT NULL,
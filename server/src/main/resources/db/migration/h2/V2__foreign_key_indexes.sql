@@ -0,0 +1,13 @@
+-- Индексы под поиск по внешним ключам: вещи владельца, отзывы вещи, очистка данных удаленных пользователей.
+-- Индексы бронирований в PostgreSQL уже созданы в V1, для остальных баз создаются здесь.
+CREATE INDEX IF NOT EXISTS ix_items_owner_id ON items (owner_id);
+
+CREATE INDEX IF NOT EXISTS ix_comments_item_id ON comments (item_id);
+
+CREATE INDEX IF NOT EXISTS ix_comments_author_id ON comments (author_id);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_id_start_date ON bookings (item_id, start_date);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_id_start_date ON bookings (booker_id, start_date);
+
+CREATE INDEX IF NOT EXISTS ix_waitlist_booker_id ON waitlist (booker_id);
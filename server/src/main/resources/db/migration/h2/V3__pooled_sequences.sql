@@ -0,0 +1,59 @@
+-- Идентификаторы из последовательностей с шагом 50: Hibernate берет из последовательности сразу 50 значений
+-- и вставляет строки пачками, а не по одной с возвратом сгенерированного ключа.
+-- Вставки через JDBC берут значение по умолчанию из той же последовательности, поэтому ключи не пересекаются.
+-- Первое значение последовательности - максимальный id + 50: выделенный по нему диапазон начинается после max(id).
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+
+ALTER SEQUENCE users_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM users);
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE users ALTER COLUMN id SET DEFAULT NEXT VALUE FOR users_seq;
+
+CREATE SEQUENCE IF NOT EXISTS requests_seq INCREMENT BY 50;
+
+ALTER SEQUENCE requests_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM requests);
+
+ALTER TABLE requests ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE requests ALTER COLUMN id SET DEFAULT NEXT VALUE FOR requests_seq;
+
+CREATE SEQUENCE IF NOT EXISTS items_seq INCREMENT BY 50;
+
+ALTER SEQUENCE items_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM items);
+
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE items ALTER COLUMN id SET DEFAULT NEXT VALUE FOR items_seq;
+
+CREATE SEQUENCE IF NOT EXISTS bookings_id_seq INCREMENT BY 50;
+
+ALTER SEQUENCE bookings_id_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM bookings);
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT NEXT VALUE FOR bookings_id_seq;
+
+CREATE SEQUENCE IF NOT EXISTS waitlist_seq INCREMENT BY 50;
+
+ALTER SEQUENCE waitlist_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM waitlist);
+
+ALTER TABLE waitlist ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE waitlist ALTER COLUMN id SET DEFAULT NEXT VALUE FOR waitlist_seq;
+
+CREATE SEQUENCE IF NOT EXISTS booking_events_seq INCREMENT BY 50;
+
+ALTER SEQUENCE booking_events_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM booking_events);
+
+ALTER TABLE booking_events ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE booking_events ALTER COLUMN id SET DEFAULT NEXT VALUE FOR booking_events_seq;
+
+CREATE SEQUENCE IF NOT EXISTS comments_seq INCREMENT BY 50;
+
+ALTER SEQUENCE comments_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM comments);
+
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE comments ALTER COLUMN id SET DEFAULT NEXT VALUE FOR comments_seq;
@@ -0,0 +1,3 @@
+-- UserPurgeJob раз в несколько сотен миллисекунд ищет пользователей, помеченных удаленными:
+-- без индекса это полный просмотр users. Удаленных мало, поэтому выборка по deleted = TRUE избирательна.
+CREATE INDEX IF NOT EXISTS ix_users_deleted ON users (deleted, id);
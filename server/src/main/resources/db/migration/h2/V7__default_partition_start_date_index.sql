@@ -0,0 +1,2 @@
+-- В H2 таблица bookings не секционирована, секции по умолчанию нет: миграция нужна только для PostgreSQL.
+-- Версия заведена, чтобы нумерация миграций двух баз совпадала.
@@ -0,0 +1,85 @@
+CREATE TABLE IF NOT EXISTS users (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  email VARCHAR(512) NOT NULL,
+  deleted BOOLEAN NOT NULL DEFAULT FALSE,
+  CONSTRAINT pk_user PRIMARY KEY (id),
+  CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
+);
+
+-- частичный индекс для фоновой очистки: удаленных пользователей немного
+CREATE INDEX IF NOT EXISTS ix_users_deleted ON users (id) WHERE deleted;
+
+CREATE TABLE IF NOT EXISTS requests (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    description VARCHAR(512) NOT NULL,
+    requester_id BIGINT REFERENCES users(id) ON delete CASCADE,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_request PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_requests_created_id ON requests (created DESC, id);
+CREATE INDEX IF NOT EXISTS ix_requests_requester_id_created ON requests (requester_id, created DESC, id);
+
+CREATE TABLE IF NOT EXISTS items (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  description VARCHAR(512) NOT NULL,
+  available BOOL NOT NULL,
+  owner_id BIGINT REFERENCES users(id) ON delete CASCADE,
+  request_id BIGINT REFERENCES requests(id),
+  CONSTRAINT pk_item PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_items_request_id ON items (request_id);
+
+-- Бронирования секционированы по start_date, месячные секции создает и отсоединяет BookingPartitionMaintenance
+CREATE SEQUENCE IF NOT EXISTS bookings_id_seq;
+
+CREATE TABLE IF NOT EXISTS bookings (
+    id BIGINT NOT NULL DEFAULT nextval('bookings_id_seq'),
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id BIGINT REFERENCES items(id) ON delete CASCADE,
+    booker_id BIGINT REFERENCES users(id),
+    status VARCHAR(8) NOT NULL,
+    CONSTRAINT pk_booking PRIMARY KEY (id, start_date)
+) PARTITION BY RANGE (start_date);
+
+-- секция по умолчанию для дат, для которых месячная секция еще не создана
+CREATE TABLE IF NOT EXISTS bookings_default PARTITION OF bookings DEFAULT;
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_id_start_date ON bookings (item_id, start_date);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_id_start_date ON bookings (booker_id, start_date);
+
+CREATE TABLE IF NOT EXISTS waitlist (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    item_id BIGINT NOT NULL REFERENCES items(id) ON delete CASCADE,
+    booker_id BIGINT NOT NULL REFERENCES users(id) ON delete CASCADE,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_waitlist PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_waitlist_item_id ON waitlist (item_id, id);
+
+CREATE TABLE IF NOT EXISTS booking_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    booking_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    status VARCHAR(8) NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_booking_event PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS comments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    text VARCHAR(512) NOT NULL,
+    item_id BIGINT REFERENCES items(id) ON delete CASCADE,
+    author_id BIGINT REFERENCES users(id) ON delete CASCADE,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_comment PRIMARY KEY (id)
+);
\ No newline at end of file
@@ -0,0 +1,55 @@
+-- Идентификаторы из последовательностей с шагом 50: Hibernate берет из последовательности сразу 50 значений
+-- и вставляет строки пачками, а не по одной с возвратом сгенерированного ключа.
+-- Вставки через JDBC берут значение по умолчанию из той же последовательности, поэтому ключи не пересекаются.
+-- Первое значение последовательности - максимальный id + 50: выделенный по нему диапазон начинается после max(id).
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50 OWNED BY users.id;
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+
+SELECT setval('users_seq', COALESCE(MAX(id), 0) + 50, false) FROM users;
+
+CREATE SEQUENCE IF NOT EXISTS requests_seq INCREMENT BY 50 OWNED BY requests.id;
+
+ALTER TABLE requests ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE requests ALTER COLUMN id SET DEFAULT nextval('requests_seq');
+
+SELECT setval('requests_seq', COALESCE(MAX(id), 0) + 50, false) FROM requests;
+
+CREATE SEQUENCE IF NOT EXISTS items_seq INCREMENT BY 50 OWNED BY items.id;
+
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE items ALTER COLUMN id SET DEFAULT nextval('items_seq');
+
+SELECT setval('items_seq', COALESCE(MAX(id), 0) + 50, false) FROM items;
+
+ALTER SEQUENCE bookings_id_seq INCREMENT BY 50;
+
+SELECT setval('bookings_id_seq', COALESCE(MAX(id), 0) + 50, false) FROM bookings;
+
+CREATE SEQUENCE IF NOT EXISTS waitlist_seq INCREMENT BY 50 OWNED BY waitlist.id;
+
+ALTER TABLE waitlist ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE waitlist ALTER COLUMN id SET DEFAULT nextval('waitlist_seq');
+
+SELECT setval('waitlist_seq', COALESCE(MAX(id), 0) + 50, false) FROM waitlist;
+
+CREATE SEQUENCE IF NOT EXISTS booking_events_seq INCREMENT BY 50 OWNED BY booking_events.id;
+
+ALTER TABLE booking_events ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE booking_events ALTER COLUMN id SET DEFAULT nextval('booking_events_seq');
+
+SELECT setval('booking_events_seq', COALESCE(MAX(id), 0) + 50, false) FROM booking_events;
+
+CREATE SEQUENCE IF NOT EXISTS comments_seq INCREMENT BY 50 OWNED BY comments.id;
+
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE comments ALTER COLUMN id SET DEFAULT nextval('comments_seq');
+
+SELECT setval('comments_seq', COALESCE(MAX(id), 0) + 50, false) FROM comments;
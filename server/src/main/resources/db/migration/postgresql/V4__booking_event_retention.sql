@@ -0,0 +1,11 @@
+-- События бронирований не удаляются сразу после отправки: отправленное событие получает время публикации
+-- и хранится в течение срока хранения, чтобы переподключившийся подписчик получил пропущенное по Last-Event-ID.
+ALTER TABLE booking_events ADD COLUMN IF NOT EXISTS published TIMESTAMP WITHOUT TIME ZONE;
+
+-- разбор неопубликованных событий и удаление опубликованных раньше срока хранения
+CREATE INDEX IF NOT EXISTS ix_booking_events_published ON booking_events (published, id);
+
+-- повтор пропущенных событий подписчика: он получает события как арендатор и как владелец
+CREATE INDEX IF NOT EXISTS ix_booking_events_booker_id ON booking_events (booker_id, id);
+
+CREATE INDEX IF NOT EXISTS ix_booking_events_owner_id ON booking_events (owner_id, id);
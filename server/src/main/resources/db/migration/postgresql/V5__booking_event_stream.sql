@@ -0,0 +1,28 @@
+-- Сквозной номер события в потоке публикации. Номера выдаются при разборе outbox под блокировкой
+-- единственной строки booking_event_sequencer, поэтому становятся видны в порядке коммита
+-- (id из пулового сиквенса так не упорядочены). Каждый экземпляр сервера читает поток по своему курсору,
+-- номер же служит id события SSE для повтора по Last-Event-ID.
+ALTER TABLE booking_events ADD COLUMN IF NOT EXISTS stream_position BIGINT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_booking_events_stream_position ON booking_events (stream_position);
+
+CREATE TABLE IF NOT EXISTS booking_event_sequencer (
+    id INT NOT NULL,
+    last_position BIGINT NOT NULL,
+    CONSTRAINT pk_booking_event_sequencer PRIMARY KEY (id)
+);
+
+-- уже опубликованные события остаются доступными для повтора под своими id
+UPDATE booking_events SET stream_position = id WHERE published IS NOT NULL AND stream_position IS NULL;
+
+INSERT INTO booking_event_sequencer (id, last_position)
+SELECT 1, COALESCE(MAX(stream_position), 0) FROM booking_events;
+
+-- повтор пропущенных событий подписчика идет по номеру, а не по id
+DROP INDEX IF EXISTS ix_booking_events_booker_id;
+
+DROP INDEX IF EXISTS ix_booking_events_owner_id;
+
+CREATE INDEX IF NOT EXISTS ix_booking_events_booker_position ON booking_events (booker_id, stream_position);
+
+CREATE INDEX IF NOT EXISTS ix_booking_events_owner_position ON booking_events (owner_id, stream_position);
@@ -0,0 +1,3 @@
+-- UserPurgeJob раз в несколько сотен миллисекунд ищет пользователей, помеченных удаленными:
+-- без индекса это полный просмотр users. Частичный индекс содержит только удаленных, а их мало.
+CREATE INDEX IF NOT EXISTS ix_users_deleted ON users (id) WHERE deleted;
@@ -0,0 +1,4 @@
+-- BookingPartitionMaintenance ищет месяцы, чьи строки остались в секции по умолчанию, по одному значению на месяц
+-- (MIN(start_date) после начала следующего месяца). С индексом каждый шаг - чтение одной записи индекса,
+-- а не полный просмотр секции. Индекс только на секции по умолчанию: в месячных секциях он не нужен.
+CREATE INDEX IF NOT EXISTS ix_bookings_default_start_date ON bookings_default (start_date);
@@ -0,0 +1,99 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserBatchRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+//Массовая вставка через Hibernate: идентификаторы выделяются из последовательности по 50,
+//поэтому вставки уходят JDBC-батчами, а не по одной строке с возвратом ключа, как при IDENTITY.
+//Проверяется число запросов к базе, а не время: на H2 в памяти обращение к базе почти ничего не стоит.
+//Статистика Hibernate включается только на время теста, чтобы тест делил контекст с остальными.
+@Transactional
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BatchInsertTest {
+    private static final int ROWS = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final UserBatchRepository userBatchRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void saveAllShouldInsertInBatches() {
+
+        List<User> users = userRepository.saveAll(newUsers("batch", ROWS));
+        entityManager.flush();
+
+        //по одному запросу на пачку вставок и на выделение очередных 50 идентификаторов
+        assertThat(statistics.getEntityInsertCount(), is((long) ROWS));
+        assertThat(statistics.getPrepareStatementCount(), lessThanOrEqualTo(2L * ROWS / BATCH_SIZE + 2));
+        assertThat(users.stream().map(User::getId).distinct().count(), is((long) ROWS));
+    }
+
+    @Test
+    void jdbcInsertsShouldNotCollideWithPooledIdentifiers() {
+        List<User> pooled = userRepository.saveAll(newUsers("pooled", BATCH_SIZE / 2));
+        entityManager.flush();
+        List<User> jdbc = newUsers("jdbc", BATCH_SIZE);
+        userBatchRepository.insertAll(jdbc);
+        List<User> pooledAgain = userRepository.saveAll(newUsers("again", BATCH_SIZE));
+        entityManager.flush();
+
+        Set<Long> ids = new HashSet<>();
+        Stream.of(pooled, jdbc, pooledAgain).flatMap(List::stream).forEach(user -> ids.add(user.getId()));
+        assertThat(ids, hasSize(pooled.size() + jdbc.size() + pooledAgain.size()));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email LIKE '%@bench.ru'",
+                Long.class), is((long) ids.size()));
+    }
+
+    private static List<User> newUsers(String prefix, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setName(prefix + i);
+            user.setEmail(prefix + i + "@bench.ru");
+            users.add(user);
+        }
+        return users;
+    }
+
+}
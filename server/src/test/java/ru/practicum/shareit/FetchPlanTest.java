@@ -0,0 +1,137 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemExtendedDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+//Без open-in-view сессия закрывается вместе с транзакцией сервиса, поэтому тест намеренно не транзакционный:
+//ответ собирается внутри сервиса, а нужные связи загружаются его запросами, без ленивой догрузки по одной сущности
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class FetchPlanTest {
+    private final ApplicationContext applicationContext;
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final BookingRepository bookingRepository;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+
+    private final List<User> users = new ArrayList<>();
+    private User owner;
+    private Item item;
+    private Booking booking;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        owner = saveUser("owner");
+        item = new Item();
+        item.setName("fetch plan item");
+        item.setDescription("fetch plan description");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item = itemRepository.save(item);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            Comment comment = new Comment();
+            comment.setText("comment " + i);
+            comment.setItem(item);
+            comment.setAuthor(saveUser("author" + i));
+            comment.setCreated(now);
+            commentRepository.save(comment);
+        }
+
+        booking = new Booking();
+        booking.setStart(now.plusDays(1));
+        booking.setEnd(now.plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(users.getLast());
+        booking.setStatus(Status.WAITING);
+        booking = bookingRepository.save(booking);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteById(booking.getId());
+        itemRepository.deleteById(item.getId());
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void openInViewShouldBeDisabled() {
+        assertThat(applicationContext.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class), emptyArray());
+    }
+
+    @Test
+    void itemShouldBeLoadedWithOwnerAndCommentAuthors() {
+        ItemExtendedDto result = itemService.get(item.getId());
+
+        assertThat(result.getComments().stream().map(CommentDto::getAuthorName).toList(),
+                containsInAnyOrder("author0", "author1", "author2"));
+        assertThat(statistics.getEntityFetchCount(), is(0L));
+    }
+
+    @Test
+    void bookingShouldBeLoadedWithItem() {
+        ResponseBookingDto result = bookingService.get(owner.getId(), booking.getId());
+
+        assertThat(result.getItem().getId(), is(item.getId()));
+        assertThat(statistics.getEntityFetchCount(), is(0L));
+    }
+
+    private User saveUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@fetch-plan.ru");
+        user = userRepository.save(user);
+        users.add(user);
+        return user;
+    }
+
+    @TestConfiguration
+    static class StatisticsConfig {
+        @Bean
+        public HibernatePropertiesCustomizer generateStatistics() {
+            return properties -> properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.common.exceptions.ValidationException;
+import ru.practicum.shareit.common.idempotency.IdempotencyStore;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdempotencyStoreTest {
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    @Test
+    void sameBodyWithDifferentPropertyOrderShouldBeRepeat() {
+        IdempotencyStore store = new IdempotencyStore(TTL, 10, Duration.ofSeconds(1));
+        AtomicInteger calls = new AtomicInteger();
+
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("name", "item");
+        first.put("available", true);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("available", true);
+        second.put("name", "item");
+
+        store.execute("items", 1, "key", first, calls::incrementAndGet);
+        int result = store.execute("items", 1, "key", second, calls::incrementAndGet);
+
+        assertThat(result, equalTo(1));
+        assertThat(calls.get(), equalTo(1));
+        assertThrows(ValidationException.class,
+                () -> store.execute("items", 1, "key", Map.of("name", "other"), calls::incrementAndGet));
+    }
+
+    @Test
+    void repeatShouldFailWithConflictIfFirstRequestIsStillRunning() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(TTL, 10, Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() ->
+                store.execute("items", 1, "key", "body", () -> {
+                    started.countDown();
+                    await(finish);
+                    return 1;
+                }));
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThrows(ValidationException.class, () -> store.execute("items", 1, "key", "body", () -> 2));
+
+        finish.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS), equalTo(1));
+        assertThat(store.execute("items", 1, "key", "body", () -> 2), equalTo(1));
+    }
+
+    @Test
+    void runningRequestShouldNotBeEvictedWhenStoreIsFull() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(TTL, 1, Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() ->
+                store.execute("items", 1, "running", "body", () -> {
+                    started.countDown();
+                    await(finish);
+                    return 1;
+                }));
+        started.await(5, TimeUnit.SECONDS);
+
+        // Новая запись не вытесняет выполняющуюся: ее повтор по-прежнему не запускает создание второй раз
+        store.execute("items", 1, "other", "body", () -> 3);
+        assertThrows(ValidationException.class, () -> store.execute("items", 1, "running", "body", () -> 2));
+
+        finish.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS), equalTo(1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.practicum.shareit.common.datasource.ReplicaRoutingDataSource;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+//Реплика - второй пул к той же базе H2: проверяется, что JPA работает через маршрутизацию соединений
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "shareit.datasource.replicas.urls=jdbc:h2:mem:shareit",
+                "shareit.datasource.replicas.read-your-writes-window=5s"
+        })
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ReplicaDataSourceConfigTest {
+    private final DataSource dataSource;
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+    private final UserService userService;
+
+    @Test
+    void servicesShouldWorkThroughRoutingDataSource() {
+        replicaRoutingDataSource.checkReplicas();
+        assertThat(dataSource, instanceOf(LazyConnectionDataSourceProxy.class));
+        assertThat(replicaRoutingDataSource.getHealthyReplicaCount(), is(1L));
+
+        UserDto created = userService.create(new UserDto(0, "replica", "replica@routing.ru"));
+        UserDto found = userService.get(created.getId());
+
+        assertThat(found.getEmail(), is("replica@routing.ru"));
+        userService.delete(created.getId());
+    }
+}
@@ -0,0 +1,143 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.common.datasource.ReadYourWritesWindow;
+import ru.practicum.shareit.common.datasource.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//Основная база и реплика - две отдельные базы H2 в памяти, каждая знает свое имя
+public class ReplicaRoutingDataSourceTest {
+    private static final DataSource PRIMARY = node("routing_primary");
+    private static final DataSource REPLICA = node("routing_replica");
+
+    private final ReadYourWritesWindow readYourWrites = new ReadYourWritesWindow(Duration.ofMinutes(1));
+
+    @AfterEach
+    void clearCurrentUser() {
+        readYourWrites.clearCurrentUser();
+    }
+
+    @Test
+    void readOnlyTransactionsShouldGoToReplica() {
+        ReplicaRoutingDataSource routing = routing(REPLICA, readYourWrites);
+        routing.checkReplicas();
+
+        assertThat(read(routing), is("routing_replica"));
+        assertThat(write(routing), is("routing_primary"));
+        assertThat(new JdbcTemplate(routing).queryForObject("SELECT name FROM node", String.class),
+                is("routing_primary"));
+    }
+
+    @Test
+    void uncheckedOrFailedReplicaShouldFailOverToPrimary() {
+        DataSource missing = new DriverManagerDataSource("jdbc:h2:mem:routing_late;IFEXISTS=TRUE", "sa", "");
+        ReplicaRoutingDataSource routing = routing(missing, readYourWrites);
+
+        assertThat(read(routing), is("routing_primary"));
+        routing.checkReplicas();
+        assertThat(routing.getHealthyReplicaCount(), is(0L));
+        assertThat(read(routing), is("routing_primary"));
+
+        //реплика поднялась: следующая проверка возвращает ее в чтение
+        node("routing_late");
+        routing.checkReplicas();
+        assertThat(routing.getHealthyReplicaCount(), is(1L));
+        assertThat(read(routing), is("routing_late"));
+    }
+
+    @Test
+    void replicaThatRefusesConnectionShouldBeExcludedUntilNextCheck() throws SQLException {
+        DataSource flaky = mock(DataSource.class);
+        when(flaky.getConnection())
+                .thenReturn(REPLICA.getConnection())
+                .thenThrow(new SQLException("connection refused"));
+        ReplicaRoutingDataSource routing = routing(flaky, readYourWrites);
+        routing.checkReplicas();
+
+        assertThat(read(routing), is("routing_primary"));
+        assertThat(routing.getHealthyReplicaCount(), is(0L));
+    }
+
+    @Test
+    void userShouldReadOwnWritesFromPrimaryWithinWindow() {
+        ReplicaRoutingDataSource routing = routing(REPLICA, readYourWrites);
+        routing.checkReplicas();
+
+        readYourWrites.setCurrentUser(1);
+        write(routing);
+        assertThat(read(routing), is("routing_primary"));
+
+        readYourWrites.setCurrentUser(2);
+        assertThat(read(routing), is("routing_replica"));
+    }
+
+    @Test
+    void rolledBackWriteShouldNotOpenWindow() {
+        ReplicaRoutingDataSource routing = routing(REPLICA, readYourWrites);
+        routing.checkReplicas();
+
+        readYourWrites.setCurrentUser(1);
+        query(routing, false, true);
+        assertThat(read(routing), is("routing_replica"));
+    }
+
+    @Test
+    void zeroWindowShouldDisableReadYourWrites() {
+        ReadYourWritesWindow disabled = new ReadYourWritesWindow(Duration.ZERO);
+        ReplicaRoutingDataSource routing = routing(REPLICA, disabled);
+        routing.checkReplicas();
+
+        disabled.setCurrentUser(1);
+        write(routing);
+        assertThat(read(routing), is("routing_replica"));
+        disabled.clearCurrentUser();
+    }
+
+    private static ReplicaRoutingDataSource routing(DataSource replica, ReadYourWritesWindow readYourWrites) {
+        return new ReplicaRoutingDataSource(PRIMARY, Map.of("replica", replica), readYourWrites, 1);
+    }
+
+    private static String read(ReplicaRoutingDataSource routing) {
+        return query(routing, true, false);
+    }
+
+    private static String write(ReplicaRoutingDataSource routing) {
+        return query(routing, false, false);
+    }
+
+    private static String query(ReplicaRoutingDataSource routing, boolean readOnly, boolean rollback) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> {
+            if (rollback) {
+                status.setRollbackOnly();
+            }
+            return new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class);
+        });
+    }
+
+    private static DataSource node(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(50) NOT NULL)");
+        jdbcTemplate.update("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
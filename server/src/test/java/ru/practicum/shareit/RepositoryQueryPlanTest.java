@@ -0,0 +1,201 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.QBooking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingEventRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.WaitlistRepository;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserPurgeJob;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+//Планы запросов репозиториев: EXPLAIN каждого SQL, который выполняет метод репозитория.
+//Полный просмотр таблицы допустим только там, где он ожидается (выборка всех строк, поиск по подстроке).
+//H2 сам индексирует внешние ключи, а PostgreSQL - нет, поэтому отдельно проверяется,
+//что каждый внешний ключ - первая колонка индекса из миграций.
+@Transactional
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RepositoryQueryPlanTest {
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* PUBLIC\\.(\\w+)\\.tableScan \\*/");
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final BookingRepository bookingRepository;
+    private final WaitlistRepository waitlistRepository;
+    private final BookingEventRepository bookingEventRepository;
+
+    @Test
+    void foreignKeysShouldBeCoveredByMigrationIndexes() {
+        List<String> foreignKeys = jdbcTemplate.queryForList("SELECT k.TABLE_NAME || '.' || k.COLUMN_NAME " +
+                "FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE k " +
+                "JOIN INFORMATION_SCHEMA.TABLE_CONSTRAINTS t ON t.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA " +
+                "AND t.CONSTRAINT_NAME = k.CONSTRAINT_NAME " +
+                "WHERE t.CONSTRAINT_TYPE = 'FOREIGN KEY' AND k.TABLE_SCHEMA = 'PUBLIC'", String.class);
+        List<String> indexed = jdbcTemplate.queryForList("SELECT TABLE_NAME || '.' || COLUMN_NAME " +
+                "FROM INFORMATION_SCHEMA.INDEX_COLUMNS " +
+                "WHERE TABLE_SCHEMA = 'PUBLIC' AND ORDINAL_POSITION = 1 AND INDEX_NAME LIKE 'IX\\_%'", String.class);
+
+        assertThat(foreignKeys, not(empty()));
+        assertThat(indexed, hasItems(foreignKeys.toArray(String[]::new)));
+    }
+
+    @Test
+    void userQueriesShouldUseIndexes() {
+        assertNoTableScans(() -> userRepository.findById(1L));
+        assertNoTableScans(() -> userRepository.existsById(1L));
+        assertNoTableScans(() -> userRepository.existsByEmail("user@email.ru"));
+        assertNoTableScans(() -> userRepository.findEmailsByEmailIn(List.of("user@email.ru", "other@email.ru")));
+        assertNoTableScans(() -> userRepository.findUserDtosByIdIn(List.of(1L, 2L)));
+        assertNoTableScans(() -> userRepository.findShortUserDtoById(1));
+        assertNoTableScans(() -> userRepository.findDeletedIdsByIdIn(List.of(1L, 2L)));
+        assertNoTableScans(() -> userRepository.markDeleted(1));
+        assertTableScans(Set.of("USERS"), userRepository::findAllEmails);
+    }
+
+    @Test
+    void itemQueriesShouldUseIndexes() {
+        assertNoTableScans(() -> itemRepository.findAllByOwnerId(1));
+        assertNoTableScans(() -> itemRepository.findWithOwnerById(1));
+        assertNoTableScans(() -> itemRepository.findAllByRequestId(1));
+        assertNoTableScans(() -> itemRepository.findShortItemDtosByIdIn(List.of(1L, 2L)));
+        assertNoTableScans(() -> itemRepository.findRequestItemDtosByRequestIdIn(List.of(1L, 2L)));
+        assertNoTableScans(() -> itemRepository.countByRequestIdIn(List.of(1L, 2L)));
+        assertNoTableScans(() -> commentRepository.findAllByItemId(1));
+        //поиск по подстроке и прогрев индекса подбора читают все вещи
+        assertTableScans(Set.of("ITEMS"), () -> itemRepository.findByText("text"));
+        assertTableScans(Set.of("ITEMS"), itemRepository::findAllAvailable);
+    }
+
+    @Test
+    void requestQueriesShouldUseIndexes() {
+        PageRequest page = PageRequest.of(0, 20);
+
+        assertNoTableScans(() -> itemRequestRepository.findOwnFirstPage(1, page));
+        assertNoTableScans(() -> itemRequestRepository.findOwnPageAfter(1, NOW, 1, page));
+        assertNoTableScans(() -> itemRequestRepository.findFeedFirstPage(1, page));
+        assertNoTableScans(() -> itemRequestRepository.findFeedPageAfter(1, NOW, 1, page));
+        assertNoTableScans(() -> itemRequestRepository.findFeedHead(page));
+        assertNoTableScans(() -> itemRequestRepository.findDetailRowsById(1));
+    }
+
+    @Test
+    void bookingQueriesShouldUseIndexes() {
+        assertNoTableScans(() -> bookingRepository.findWithItemById(1));
+        assertNoTableScans(() -> bookingRepository.findLastBooking(1, NOW));
+        assertNoTableScans(() -> bookingRepository.findNextBooking(1, NOW));
+        assertNoTableScans(() -> waitlistRepository.findFirstPromotable(1, NOW));
+        assertNoTableScans(() -> waitlistRepository.existsOverlapping(1, 1, NOW, NOW.plusDays(1)));
+        assertNoTableScans(bookingEventRepository::lockSequencer);
+        assertNoTableScans(() -> bookingEventRepository.updateSequencer(1));
+        assertNoTableScans(bookingEventRepository::findFirst100ByPublishedIsNullOrderByIdAsc);
+        assertNoTableScans(() -> bookingEventRepository
+                .findFirst100ByStreamPositionGreaterThanOrderByStreamPositionAsc(1));
+        assertNoTableScans(bookingEventRepository::findLastStreamPosition);
+        assertNoTableScans(() -> bookingEventRepository
+                .findAllByBookerIdAndStreamPositionBetweenOrderByStreamPositionAsc(1, 1, 10));
+        assertNoTableScans(() -> bookingEventRepository
+                .findAllByOwnerIdAndStreamPositionBetweenOrderByStreamPositionAsc(1, 1, 10));
+        assertNoTableScans(() -> bookingEventRepository.deletePublishedBefore(NOW));
+        assertNoTableScans(() -> bookingRepository.deleteAllByIdIn(List.of(1L, 2L)));
+        //предикаты getUserBookings и getUserItemsBookings с условиями состояний
+        assertNoTableScans(() -> bookingRepository.findAll(QBooking.booking.booker.id.eq(1L)
+                .and(QBooking.booking.item.owner.deleted.isFalse())
+                .and(QBooking.booking.start.before(NOW))
+                .and(QBooking.booking.end.after(NOW)), Sort.by("start").descending()));
+        assertNoTableScans(() -> bookingRepository.findAll(QBooking.booking.item.id.in(1L, 2L)
+                .and(QBooking.booking.booker.deleted.isFalse())
+                .and(QBooking.booking.status.eq(Status.WAITING)), Sort.by("start").descending()));
+        //прогрев счетчиков и архивация читают все бронирования
+        assertTableScans(Set.of("BOOKINGS", "ITEMS"), () -> bookingRepository.countTotalsByBooker(NOW));
+        assertTableScans(Set.of("BOOKINGS", "ITEMS"), () -> bookingRepository.countTotalsByOwner(NOW));
+        assertTableScans(Set.of("BOOKINGS", "ITEMS"), () -> bookingRepository.countFutureStartsByBooker(NOW));
+        assertTableScans(Set.of("BOOKINGS", "ITEMS"), () -> bookingRepository.countFutureStartsByOwner(NOW));
+        assertTableScans(Set.of("BOOKINGS", "ITEMS"), () -> bookingRepository.countOpenEndsByBooker(NOW));
+        assertTableScans(Set.of("BOOKINGS", "ITEMS"), () -> bookingRepository.countOpenEndsByOwner(NOW));
+        assertTableScans(Set.of("BOOKINGS", "ITEMS"), () -> bookingRepository.findAllTimelineEndedBefore(NOW));
+        assertTableScans(Set.of("BOOKINGS"), bookingRepository::findAllApprovedEligibility);
+        assertTableScans(Set.of("BOOKINGS"), () -> bookingRepository.findArchivable(NOW, PageRequest.of(0, 100)));
+    }
+
+    //SQL задачи очистки выполняется через JdbcTemplate, мимо Hibernate, поэтому проверяется по тексту
+    @Test
+    void userPurgeStatementsShouldUseIndexes() {
+        for (String sql : UserPurgeJob.getStatements()) {
+            assertPlan(Set.of(), sql);
+        }
+    }
+
+    private void assertNoTableScans(Runnable query) {
+        assertTableScans(Set.of(), query);
+    }
+
+    private void assertTableScans(Set<String> allowed, Runnable query) {
+        STATEMENTS.clear();
+        query.run();
+        List<String> statements = new ArrayList<>(STATEMENTS);
+        assertThat(statements, not(empty()));
+
+        for (String sql : statements) {
+            assertPlan(allowed, sql);
+        }
+    }
+
+    private void assertPlan(Set<String> allowed, String sql) {
+        String plan = String.join("\n", jdbcTemplate.query(
+                connection -> connection.prepareStatement("EXPLAIN " + sql), (rs, rowNum) -> rs.getString(1)));
+        Set<String> scanned = new TreeSet<>();
+        Matcher matcher = TABLE_SCAN.matcher(plan);
+        while (matcher.find()) {
+            scanned.add(matcher.group(1));
+        }
+        assertThat("Неожиданный полный просмотр таблиц в плане:\n" + plan, allowed,
+                hasItems(scanned.toArray(String[]::new)));
+    }
+
+    //запоминает SQL, который Hibernate отправляет в базу
+    @TestConfiguration
+    static class StatementRecorderConfig {
+        @Bean
+        public HibernatePropertiesCustomizer statementRecorder() {
+            StatementInspector inspector = sql -> {
+                STATEMENTS.add(sql);
+                return sql;
+            };
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.ArchivedBookingCounts;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingArchive;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BookingArchiveTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedBookingsShouldBeFoundAfterReload() {
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 10, 10, 10, 123456789);
+        BookingArchive archive = new BookingArchive(directory.toString());
+        archive.load();
+        archive.append(List.of(
+                new ArchivedBooking(1, start, start.plusDays(1), 10, 100, 1000, Status.APPROVED),
+                new ArchivedBooking(2, start, start.plusDays(2), 11, 101, 1000, Status.REJECTED)));
+        archive.append(List.of(
+                new ArchivedBooking(3, start, start.plusDays(3), 12, 100, 1001, Status.APPROVED)));
+
+        // Новый экземпляр читает сегменты с диска
+        BookingArchive reloaded = new BookingArchive(directory.toString());
+        reloaded.load();
+
+        List<ArchivedBooking> bookerBookings = reloaded.findAllByBookerId(100);
+        assertThat(bookerBookings, hasSize(2));
+        assertThat(bookerBookings.stream().map(ArchivedBooking::getId).toList(), containsInAnyOrder(1L, 3L));
+
+        List<ArchivedBooking> ownerBookings = reloaded.findAllByOwnerId(1000);
+        assertThat(ownerBookings, hasSize(2));
+
+        ArchivedBooking first = ownerBookings.stream().filter(booking -> booking.getId() == 1).findFirst().get();
+        assertThat(first.getStart(), equalTo(start));
+        assertThat(first.getEnd(), equalTo(start.plusDays(1)));
+        assertThat(first.getItemId(), equalTo(10L));
+        assertThat(first.getStatus(), equalTo(Status.APPROVED));
+
+        assertThat(reloaded.findAllByBookerId(999), empty());
+        assertThat(reloaded.findAll(), hasSize(3));
+    }
+
+    @Test
+    void countsShouldBeKeptInIndex() {
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 10, 10);
+        BookingArchive archive = new BookingArchive(directory.toString());
+        archive.append(List.of(
+                new ArchivedBooking(1, start, start.plusDays(1), 10, 100, 1000, Status.APPROVED),
+                new ArchivedBooking(2, start, start.plusDays(2), 11, 101, 1000, Status.REJECTED)));
+        archive.append(List.of(
+                new ArchivedBooking(3, start, start.plusDays(3), 12, 100, 1001, Status.WAITING)));
+
+        BookingArchive reloaded = new BookingArchive(directory.toString());
+        reloaded.load();
+
+        Map<Long, ArchivedBookingCounts> bookers = reloaded.countByBookerId().stream()
+                .collect(Collectors.toMap(ArchivedBookingCounts::getUserId, Function.identity()));
+        assertThat(bookers.keySet(), containsInAnyOrder(100L, 101L));
+        assertThat(bookers.get(100L).getTotal(), equalTo(2L));
+        assertThat(bookers.get(100L).getWaiting(), equalTo(1L));
+        assertThat(bookers.get(101L).getRejected(), equalTo(1L));
+
+        Map<Long, ArchivedBookingCounts> owners = reloaded.countByOwnerId().stream()
+                .collect(Collectors.toMap(ArchivedBookingCounts::getUserId, Function.identity()));
+        assertThat(owners.get(1000L).getTotal(), equalTo(2L));
+        assertThat(owners.get(1001L).getTotal(), equalTo(1L));
+        assertThat(reloaded.findLatestEnd().orElseThrow(), equalTo(start.plusDays(3)));
+    }
+
+    @Test
+    void repeatedAppendShouldSkipAlreadyArchivedBookings() {
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 10, 10);
+        BookingArchive archive = new BookingArchive(directory.toString());
+        archive.append(List.of(
+                new ArchivedBooking(1, start, start.plusDays(1), 10, 100, 1000, Status.APPROVED)));
+
+        // Перенос повторяется после отката транзакции: первая строка уже в архиве
+        archive.append(List.of(
+                new ArchivedBooking(1, start, start.plusDays(1), 10, 100, 1000, Status.APPROVED),
+                new ArchivedBooking(2, start, start.plusDays(1), 11, 100, 1000, Status.APPROVED)));
+        archive.append(List.of(
+                new ArchivedBooking(2, start, start.plusDays(1), 11, 100, 1000, Status.APPROVED)));
+
+        BookingArchive reloaded = new BookingArchive(directory.toString());
+        reloaded.load();
+        assertThat(reloaded.findAll().stream().map(ArchivedBooking::getId).toList(), contains(1L, 2L));
+        assertThat(reloaded.contains(2), equalTo(true));
+        assertThat(reloaded.contains(3), equalTo(false));
+    }
+
+    @Test
+    void removeUserShouldRewriteSegmentsWithoutHisBookings() {
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 10, 10);
+        BookingArchive archive = new BookingArchive(directory.toString());
+        archive.append(List.of(
+                new ArchivedBooking(1, start, start.plusDays(1), 10, 100, 1000, Status.APPROVED),
+                new ArchivedBooking(2, start, start.plusDays(2), 11, 101, 1000, Status.REJECTED)));
+        archive.append(List.of(
+                new ArchivedBooking(3, start, start.plusDays(3), 12, 100, 1001, Status.WAITING)));
+
+        archive.removeUser(100);
+
+        assertThat(archive.findAll().stream().map(ArchivedBooking::getId).toList(), contains(2L));
+        assertThat(archive.contains(1), equalTo(false));
+
+        // Старые сегменты удалены с диска, новый экземпляр видит только переписанный
+        BookingArchive reloaded = new BookingArchive(directory.toString());
+        reloaded.load();
+        assertThat(reloaded.findAll().stream().map(ArchivedBooking::getId).toList(), contains(2L));
+        assertThat(reloaded.countByBookerId().stream().map(ArchivedBookingCounts::getUserId).toList(),
+                contains(101L));
+        assertThat(reloaded.findLatestEnd().orElseThrow(), equalTo(start.plusDays(2)));
+    }
+}
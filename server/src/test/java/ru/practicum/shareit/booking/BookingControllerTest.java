@@ -7,26 +7,32 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStateCountsDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.common.controller.ErrorHandler;
 import ru.practicum.shareit.common.exceptions.InternalServerException;
 import ru.practicum.shareit.common.exceptions.InvalidBookingDatesException;
+import ru.practicum.shareit.common.idempotency.IdempotencyStore;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -37,6 +43,9 @@ public class BookingControllerTest {
     @Mock
     BookingService service;
 
+    @Spy
+    private IdempotencyStore idempotencyStore = new IdempotencyStore(Duration.ofMinutes(1), 100, Duration.ofSeconds(5));
+
     @InjectMocks
     BookingController controller;
 
@@ -77,6 +86,27 @@ public class BookingControllerTest {
         );
     }
 
+    @Test
+    void createWithSameIdempotencyKeyShouldCallServiceOnce() throws Exception {
+        initialize();
+
+        when(service.create(anyLong(), any(BookingDto.class))).thenReturn(responseBookingDto);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/bookings")
+                            .header("X-Sharer-User-Id", 3L)
+                            .header("Idempotency-Key", "key-1")
+                            .content(mapper.writeValueAsString(bookingDto))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(mapper.writeValueAsString(responseBookingDto)));
+        }
+
+        verify(service, times(1)).create(anyLong(), any(BookingDto.class));
+    }
+
     @Test
     void createShouldReturnInternalServerError() throws Exception {
         initialize();
@@ -182,6 +212,28 @@ public class BookingControllerTest {
         verify(service).getUserItemsBookings(eq(3L), eq("CURRENT"));
     }
 
+    @Test
+    void getCountsTest() throws Exception {
+        BookingStateCountsDto stateCounts = new BookingStateCountsDto();
+        stateCounts.setAll(3);
+        stateCounts.setWaiting(1);
+        BookingCountsDto counts = new BookingCountsDto();
+        counts.setBooker(stateCounts);
+        counts.setOwner(new BookingStateCountsDto());
+
+        when(service.getCounts(anyLong())).thenReturn(counts);
+
+        mvc.perform(get("/bookings/counts")
+                        .header("X-Sharer-User-Id", 3L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.booker.all").value(3))
+                .andExpect(jsonPath("$.booker.waiting").value(1))
+                .andExpect(jsonPath("$.owner.all").value(0));
+
+        verify(service).getCounts(eq(3L));
+    }
+
     private void initialize() {
         bookingDto = new BookingDto();
         bookingDto.setId(5L);
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
+import ru.practicum.shareit.booking.service.BookingHolds;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class BookingHoldsTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 10, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    private final BookingHolds holds = new BookingHolds(Duration.ofMinutes(5));
+
+    @Test
+    void holdShouldBlockOverlappingPeriodOfOtherUser() {
+        assertThat(holds.hold(1, 10, START, END).isPresent(), is(true));
+
+        assertThat(holds.hold(1, 20, START.plusHours(1), END.plusHours(1)), is(Optional.empty()));
+        assertThat(holds.isHeldByOther(1, 20, START, END), is(true));
+        assertThat(holds.isHeldByOther(1, 10, START, END), is(false));
+        assertThat(holds.isHeldByOther(1, 20, END, END.plusDays(1)), is(false));
+        assertThat(holds.isHeldByOther(2, 20, START, END), is(false));
+    }
+
+    @Test
+    void holdShouldReturnExistingHoldForSamePeriod() {
+        BookingHoldDto first = holds.hold(1, 10, START, END).orElseThrow();
+
+        assertThat(holds.hold(1, 10, START, END).orElseThrow().getExpiresAt(), is(first.getExpiresAt()));
+    }
+
+    @Test
+    void releaseAllShouldRemoveHoldsOfUserOnAllItems() {
+        holds.hold(1, 10, START, END);
+        holds.hold(2, 10, START, END);
+        holds.hold(3, 30, START, END);
+
+        holds.releaseAll(10);
+
+        assertThat(holds.isHeldByOther(1, 20, START, END), is(false));
+        assertThat(holds.isHeldByOther(2, 20, START, END), is(false));
+        assertThat(holds.isHeldByOther(3, 20, START, END), is(true));
+    }
+
+    @Test
+    void releaseShouldRemoveOnlyOverlappingHoldsOfUser() {
+        holds.hold(1, 10, START, END);
+        holds.hold(1, 10, END.plusDays(1), END.plusDays(2));
+
+        holds.release(1, 10, START, END);
+
+        assertThat(holds.isHeldByOther(1, 20, START, END), is(false));
+        assertThat(holds.isHeldByOther(1, 20, END.plusDays(1), END.plusDays(2)), is(true));
+    }
+
+    @Test
+    void expireShouldKeepHoldsThatAreNotDue() {
+        holds.hold(1, 10, START, END);
+
+        holds.expire();
+
+        assertThat(holds.isHeldByOther(1, 20, START, END), is(true));
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.booking;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import ru.practicum.shareit.booking.service.BookingPartitionMaintenance;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+//Секционирование есть только в PostgreSQL, поэтому тест запускается, только если задана база:
+//SHAREIT_TEST_POSTGRES_URL (и при необходимости SHAREIT_TEST_POSTGRES_USER, SHAREIT_TEST_POSTGRES_PASSWORD).
+//Миграции применяются в отдельную схему, которая удаляется после каждого теста.
+@EnabledIfEnvironmentVariable(named = "SHAREIT_TEST_POSTGRES_URL", matches = ".+")
+public class BookingPartitionMaintenanceTest {
+    private static final String SCHEMA = "shareit_partition_test";
+    private static final int MONTHS_AHEAD = 3;
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final YearMonth current = YearMonth.now();
+
+    private Flyway flyway;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private long userId;
+    private long itemId;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("SHAREIT_TEST_POSTGRES_URL");
+        String user = System.getenv().getOrDefault("SHAREIT_TEST_POSTGRES_USER", "postgres");
+        String password = System.getenv().getOrDefault("SHAREIT_TEST_POSTGRES_PASSWORD", "");
+
+        flyway = Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas(SCHEMA)
+                .locations("classpath:db/migration/postgresql")
+                .cleanDisabled(false)
+                .load();
+        flyway.migrate();
+
+        dataSource = new SingleConnectionDataSource(url, user, password, true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+
+        userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (name, email) VALUES ('owner', 'owner@partition.ru') RETURNING id", Long.class);
+        itemId = jdbcTemplate.queryForObject("INSERT INTO items (name, description, available, owner_id) " +
+                "VALUES ('item', 'description', TRUE, ?) RETURNING id", Long.class, userId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+        flyway.clean();
+    }
+
+    @Test
+    void maintainShouldCreateHorizonPartitionsAndMovePastMonthsOutOfDefault() {
+        YearMonth past = current.minusMonths(6);
+        YearMonth next = current.plusMonths(1);
+        YearMonth beyondHorizon = current.plusMonths(MONTHS_AHEAD + 6);
+        insertBooking(past);
+        insertBooking(next);
+        insertBooking(beyondHorizon);
+
+        maintenance(24).maintain();
+
+        for (int i = -1; i <= MONTHS_AHEAD; i++) {
+            assertThat(partitionExists(current.plusMonths(i)), is(true));
+        }
+        assertThat(partitionExists(past), is(true));
+        assertThat(partitionExists(beyondHorizon), is(false));
+        assertThat(count(partitionName(past)), is(1L));
+        assertThat(count(partitionName(next)), is(1L));
+        assertThat(count("bookings_default"), is(1L));
+        assertThat(count("bookings"), is(3L));
+
+        maintenance(24).maintain();
+
+        assertThat(count("bookings_default"), is(1L));
+        assertThat(count("bookings"), is(3L));
+    }
+
+    @Test
+    void maintainShouldDropOnlyEmptyPartitionsOlderThanRetention() {
+        YearMonth past = current.minusMonths(6);
+        insertBooking(past);
+        BookingPartitionMaintenance maintenance = maintenance(3);
+        maintenance.maintain();
+
+        maintenance.maintain();
+        assertThat(partitionExists(past), is(true));
+
+        jdbcTemplate.update("DELETE FROM " + partitionName(past));
+        maintenance.maintain();
+        assertThat(partitionExists(past), is(false));
+        assertThat(partitionExists(current.minusMonths(1)), is(true));
+    }
+
+    private BookingPartitionMaintenance maintenance(int retentionMonths) {
+        return new BookingPartitionMaintenance(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                MONTHS_AHEAD, retentionMonths, Duration.ofSeconds(5));
+    }
+
+    private void insertBooking(YearMonth month) {
+        LocalDateTime start = month.atDay(10).atTime(12, 0);
+        jdbcTemplate.update("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+                "VALUES (?, ?, ?, ?, 'WAITING')", start, start.plusDays(1), itemId, userId);
+    }
+
+    private boolean partitionExists(YearMonth month) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partitionName(month));
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "bookings_p" + month.format(PARTITION_SUFFIX);
+    }
+}
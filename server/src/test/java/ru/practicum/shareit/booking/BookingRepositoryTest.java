@@ -8,6 +8,7 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.CommentEligibilityIndex;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
@@ -19,7 +20,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 
 /**
- * Не тестирую findLastBooking и findNextBooking, т.к. он косвенно проверяются в BookingServiceIntegrationTest
+ * Не тестирую findLastBooking и findNextBooking, т.к. он косвенно проверяются в BookingServiceIntegrationTest.
+ * Право на отзыв проверяется по индексу, который заполняется при записи бронирований через репозиторий
  */
 @Transactional
 @SpringBootTest(
@@ -29,17 +31,17 @@ public class BookingRepositoryTest {
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final CommentEligibilityIndex commentEligibilityIndex;
 
     @Test
-    void existsFinishedBookingByBookerIdAndItemIdShouldReturnFalseIfNotExists() {
-        boolean result = bookingRepository.existsFinishedBookingByBookerIdAndItemId(1,
-                1, LocalDateTime.now());
+    void commentEligibilityShouldBeFalseIfBookingDoesNotExist() {
+        boolean result = commentEligibilityIndex.isEligible(-1, -1, LocalDateTime.now());
 
         assertThat(result, equalTo(false));
     }
 
     @Test
-    void existsFinishedBookingByBookerIdAndItemIdShouldReturnTrueIfExists() {
+    void commentEligibilityShouldFollowFinishedApprovedBookings() {
         User user = new User();
         user.setName("name");
         user.setEmail("email@email.ru");
@@ -52,17 +54,30 @@ public class BookingRepositoryTest {
         item.setOwner(user);
         item = itemRepository.save(item);
 
+        Booking first = saveApproved(user, item, LocalDateTime.of(2025, 5, 1, 10, 10));
+        Booking second = saveApproved(user, item, LocalDateTime.of(2025, 7, 1, 10, 10));
+        assertThat(commentEligibilityIndex.isEligible(user.getId(), item.getId(), LocalDateTime.now()),
+                equalTo(true));
+
+        // Пару еще подтверждает второе бронирование
+        first.setStatus(Status.REJECTED);
+        bookingRepository.saveAndFlush(first);
+        assertThat(commentEligibilityIndex.isEligible(user.getId(), item.getId(), LocalDateTime.now()),
+                equalTo(true));
+
+        second.setStatus(Status.REJECTED);
+        bookingRepository.saveAndFlush(second);
+        assertThat(commentEligibilityIndex.isEligible(user.getId(), item.getId(), LocalDateTime.now()),
+                equalTo(false));
+    }
+
+    private Booking saveApproved(User booker, Item item, LocalDateTime start) {
         Booking booking = new Booking();
-        booking.setStart(LocalDateTime.of(2025, 5, 1, 10, 10));
-        booking.setEnd(LocalDateTime.of(2025, 6, 1, 10, 10));
+        booking.setStart(start);
+        booking.setEnd(start.plusMonths(1));
         booking.setItem(item);
-        booking.setBooker(user);
+        booking.setBooker(booker);
         booking.setStatus(Status.APPROVED);
-        bookingRepository.save(booking);
-
-        boolean result = bookingRepository.existsFinishedBookingByBookerIdAndItemId(user.getId(),
-                item.getId(), LocalDateTime.now());
-
-        assertThat(result, equalTo(true));
+        return bookingRepository.saveAndFlush(booking);
     }
 }
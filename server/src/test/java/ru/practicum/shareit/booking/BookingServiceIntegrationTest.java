@@ -4,13 +4,25 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCartDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
+import ru.practicum.shareit.booking.model.BookingEvent;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingEventRepository;
+import ru.practicum.shareit.booking.service.BookingCounters;
+import ru.practicum.shareit.booking.service.BookingEventRelay;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.common.exceptions.InternalServerException;
 import ru.practicum.shareit.common.exceptions.InvalidBookingDatesException;
 import ru.practicum.shareit.common.exceptions.NotFoundException;
+import ru.practicum.shareit.common.exceptions.OwnershipException;
+import ru.practicum.shareit.common.exceptions.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
@@ -32,6 +44,9 @@ public class BookingServiceIntegrationTest {
     private final BookingService bookingService;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingEventRepository bookingEventRepository;
+    private final BookingEventRelay bookingEventRelay;
+    private final BookingCounters bookingCounters;
 
     private BookingDto bookingDto;
     private User user;
@@ -230,6 +245,36 @@ public class BookingServiceIntegrationTest {
         assertThat(resp.getBooker().getName(), equalTo(newUser.getName()));
     }
 
+    @Test
+    void bookingsOfDeletedUsersShouldBeHidden() {
+        initialize();
+
+        User booker = new User();
+        booker.setName("bookerName");
+        booker.setEmail("booker@email.ru");
+        booker = userRepository.save(booker);
+        long bookingId = bookingService.create(booker.getId(), bookingDto).getId();
+
+        // Арендатор удален: бронирование не видно владельцу вещи
+        booker.setDeleted(true);
+        userRepository.saveAndFlush(booker);
+        assertThrows(NotFoundException.class, () -> {
+            bookingService.get(user.getId(), bookingId);
+        });
+        assertThat(bookingService.getUserItemsBookings(user.getId(), "ALL"), empty());
+
+        // Владелец удален: бронирование не видно арендатору
+        booker.setDeleted(false);
+        userRepository.saveAndFlush(booker);
+        user.setDeleted(true);
+        userRepository.saveAndFlush(user);
+        long bookerId = booker.getId();
+        assertThrows(NotFoundException.class, () -> {
+            bookingService.get(bookerId, bookingId);
+        });
+        assertThat(bookingService.getUserBookings(bookerId, "ALL"), empty());
+    }
+
     @Test
     void getUserItemsBookingsShouldThrowNotFoundExceptionIfUserDoesNotExist() {
         assertThrows(NotFoundException.class, () -> {
@@ -285,7 +330,8 @@ public class BookingServiceIntegrationTest {
         newUser = userRepository.save(newUser);
 
         bookingDto.setBookerId(newUser.getId());
-        bookingDto.setEnd(LocalDateTime.of(2026, 01, 01, 10, 10));
+        bookingDto.setStart(LocalDateTime.now().minusDays(1));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(1));
         bookingService.create(newUser.getId(), bookingDto);
 
         List<ResponseBookingDto> result = bookingService.getUserItemsBookings(user.getId(), "CURRENT");
@@ -293,6 +339,17 @@ public class BookingServiceIntegrationTest {
         assertResponseCorrect(result.getFirst());
     }
 
+    @Test
+    void getUserItemsBookingsShouldNotReturnFutureBookingsAsCurrent() {
+        initialize();
+
+        bookingDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingService.create(user.getId(), bookingDto);
+
+        List<ResponseBookingDto> result = bookingService.getUserItemsBookings(user.getId(), "CURRENT");
+        assertThat(result, empty());
+    }
+
     @Test
     void getUserItemsBookingsShouldShouldReturnPastBookings() {
         initialize();
@@ -303,6 +360,7 @@ public class BookingServiceIntegrationTest {
         newUser = userRepository.save(newUser);
 
         bookingDto.setBookerId(newUser.getId());
+        bookingDto.setStart(LocalDateTime.of(2021, 12, 1, 10, 10));
         bookingDto.setEnd(LocalDateTime.of(2022, 01, 01, 10, 10));
         bookingService.create(newUser.getId(), bookingDto);
 
@@ -365,6 +423,497 @@ public class BookingServiceIntegrationTest {
         assertResponseCorrect(result.getFirst());
     }
 
+    @Test
+    void getCountsShouldThrowNotFoundExceptionIfUserDoesNotExist() {
+        assertThrows(NotFoundException.class, () -> {
+            bookingService.getCounts(-1);
+        });
+    }
+
+    @Test
+    void getCountsShouldReturnCountsForBookerAndOwner() {
+        initialize();
+
+        User newUser = new User();
+        newUser.setName("newUserName");
+        newUser.setEmail("newUser@email.ru");
+        newUser = userRepository.save(newUser);
+
+        bookingService.create(newUser.getId(), bookingDto);
+
+        BookingDto pastBookingDto = new BookingDto();
+        pastBookingDto.setItemId(item.getId());
+        pastBookingDto.setStart(LocalDateTime.now().minusDays(2));
+        pastBookingDto.setEnd(LocalDateTime.now().minusDays(1));
+        long pastBookingId = bookingService.create(newUser.getId(), pastBookingDto).getId();
+        bookingService.update(user.getId(), pastBookingId, false);
+
+        BookingCountsDto bookerCounts = bookingService.getCounts(newUser.getId());
+        assertThat(bookerCounts.getBooker().getAll(), equalTo(2L));
+        assertThat(bookerCounts.getBooker().getCurrent(), equalTo(1L));
+        assertThat(bookerCounts.getBooker().getPast(), equalTo(1L));
+        assertThat(bookerCounts.getBooker().getFuture(), equalTo(0L));
+        assertThat(bookerCounts.getBooker().getWaiting(), equalTo(1L));
+        assertThat(bookerCounts.getBooker().getRejected(), equalTo(1L));
+        assertThat(bookerCounts.getOwner().getAll(), equalTo(0L));
+
+        BookingCountsDto ownerCounts = bookingService.getCounts(user.getId());
+        assertThat(ownerCounts.getOwner().getAll(), equalTo(2L));
+        assertThat(ownerCounts.getOwner().getWaiting(), equalTo(1L));
+        assertThat(ownerCounts.getOwner().getRejected(), equalTo(1L));
+        assertThat(ownerCounts.getBooker().getAll(), equalTo(0L));
+    }
+
+    @Test
+    void warmUpShouldRestoreCountsFromAggregates() {
+        initialize();
+
+        User newUser = new User();
+        newUser.setName("newUserName");
+        newUser.setEmail("newUser@email.ru");
+        newUser = userRepository.save(newUser);
+
+        bookingDto.setStart(LocalDateTime.now().minusDays(1));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(1));
+        bookingService.create(newUser.getId(), bookingDto);
+        BookingDto futureBookingDto = new BookingDto();
+        futureBookingDto.setItemId(item.getId());
+        futureBookingDto.setStart(LocalDateTime.now().plusDays(5));
+        futureBookingDto.setEnd(LocalDateTime.now().plusDays(6));
+        long futureBookingId = bookingService.create(newUser.getId(), futureBookingDto).getId();
+        bookingService.update(user.getId(), futureBookingId, false);
+
+        BookingCountsDto before = bookingService.getCounts(newUser.getId());
+        bookingCounters.warmUp();
+        BookingCountsDto after = bookingService.getCounts(newUser.getId());
+
+        assertThat(after.getBooker().getAll(), equalTo(2L));
+        assertThat(after.getBooker().getFuture(), equalTo(before.getBooker().getFuture()));
+        assertThat(after.getBooker().getCurrent(), equalTo(before.getBooker().getCurrent()));
+        assertThat(after.getBooker().getPast(), equalTo(before.getBooker().getPast()));
+        assertThat(after.getBooker().getWaiting(), equalTo(1L));
+        assertThat(after.getBooker().getRejected(), equalTo(1L));
+        assertThat(bookingService.getCounts(user.getId()).getOwner().getAll(), equalTo(2L));
+    }
+
+    @Test
+    void holdShouldBlockOtherUsersAndBeIdempotentForHolder() {
+        initialize();
+
+        User newUser = new User();
+        newUser.setName("newUserName");
+        newUser.setEmail("newUser@email.ru");
+        User otherUser = userRepository.save(newUser);
+
+        BookingHoldDto holdDto = new BookingHoldDto();
+        holdDto.setItemId(item.getId());
+        holdDto.setStart(LocalDateTime.now().plusDays(1));
+        holdDto.setEnd(LocalDateTime.now().plusDays(2));
+
+        BookingHoldDto hold = bookingService.hold(user.getId(), holdDto);
+        assertThat(hold.getBookerId(), equalTo(user.getId()));
+        assertThat(hold.getExpiresAt(), notNullValue());
+
+        // Повторный запрос того же пользователя не создает нового удержания
+        BookingHoldDto repeatedHold = bookingService.hold(user.getId(), holdDto);
+        assertThat(repeatedHold.getExpiresAt(), equalTo(hold.getExpiresAt()));
+
+        assertThrows(ValidationException.class, () -> {
+            bookingService.hold(otherUser.getId(), holdDto);
+        });
+
+        BookingDto otherBookingDto = new BookingDto();
+        otherBookingDto.setItemId(item.getId());
+        otherBookingDto.setStart(holdDto.getStart());
+        otherBookingDto.setEnd(holdDto.getEnd());
+        assertThrows(ValidationException.class, () -> {
+            bookingService.create(otherUser.getId(), otherBookingDto);
+        });
+
+        // Владелец удержания может забронировать вещь; удержание снимается только после коммита,
+        // поэтому до конца транзакции оно продолжает блокировать других
+        bookingDto.setStart(holdDto.getStart());
+        bookingDto.setEnd(holdDto.getEnd());
+        ResponseBookingDto result = bookingService.create(user.getId(), bookingDto);
+        assertThat(result.getStatus(), equalTo("WAITING"));
+
+        assertThrows(ValidationException.class, () -> {
+            bookingService.hold(otherUser.getId(), holdDto);
+        });
+
+        bookingService.releaseHold(user.getId(), item.getId());
+        BookingHoldDto otherHold = bookingService.hold(otherUser.getId(), holdDto);
+        assertThat(otherHold.getBookerId(), equalTo(otherUser.getId()));
+        bookingService.releaseHold(otherUser.getId(), item.getId());
+    }
+
+    @Test
+    void holdShouldAllowNonOverlappingPeriodsOfSameItem() {
+        initialize();
+
+        User newUser = new User();
+        newUser.setName("newUserName");
+        newUser.setEmail("newUser@email.ru");
+        User otherUser = userRepository.save(newUser);
+
+        BookingHoldDto firstHoldDto = new BookingHoldDto();
+        firstHoldDto.setItemId(item.getId());
+        firstHoldDto.setStart(LocalDateTime.now().plusDays(1));
+        firstHoldDto.setEnd(LocalDateTime.now().plusDays(2));
+        bookingService.hold(user.getId(), firstHoldDto);
+
+        BookingHoldDto secondHoldDto = new BookingHoldDto();
+        secondHoldDto.setItemId(item.getId());
+        secondHoldDto.setStart(LocalDateTime.now().plusDays(3));
+        secondHoldDto.setEnd(LocalDateTime.now().plusDays(4));
+        BookingHoldDto secondHold = bookingService.hold(otherUser.getId(), secondHoldDto);
+        assertThat(secondHold.getBookerId(), equalTo(otherUser.getId()));
+
+        // Удержание второго периода не блокирует бронирование первого его владельцем
+        bookingDto.setStart(firstHoldDto.getStart());
+        bookingDto.setEnd(firstHoldDto.getEnd());
+        assertThat(bookingService.create(user.getId(), bookingDto).getStatus(), equalTo("WAITING"));
+
+        BookingDto otherBookingDto = new BookingDto();
+        otherBookingDto.setItemId(item.getId());
+        otherBookingDto.setStart(LocalDateTime.now().plusDays(3).plusHours(1));
+        otherBookingDto.setEnd(LocalDateTime.now().plusDays(5));
+        assertThrows(ValidationException.class, () -> {
+            bookingService.create(user.getId(), otherBookingDto);
+        });
+
+        bookingService.releaseHold(user.getId(), item.getId());
+        bookingService.releaseHold(otherUser.getId(), item.getId());
+    }
+
+    @Test
+    void joinWaitlistShouldThrowValidationExceptionIfUserAlreadyInQueue() {
+        initialize();
+
+        WaitlistEntryDto waitlistEntryDto = new WaitlistEntryDto();
+        waitlistEntryDto.setItemId(item.getId());
+        waitlistEntryDto.setStart(LocalDateTime.now().plusDays(1));
+        waitlistEntryDto.setEnd(LocalDateTime.now().plusDays(2));
+        bookingService.joinWaitlist(user.getId(), waitlistEntryDto);
+
+        assertThrows(ValidationException.class, () -> {
+            bookingService.joinWaitlist(user.getId(), waitlistEntryDto);
+        });
+    }
+
+    @Test
+    void updateShouldPromoteWaitlistHeadIfRejected() {
+        initialize();
+
+        User firstUser = new User();
+        firstUser.setName("firstUser");
+        firstUser.setEmail("first@email.ru");
+        firstUser = userRepository.save(firstUser);
+
+        User secondUser = new User();
+        secondUser.setName("secondUser");
+        secondUser.setEmail("second@email.ru");
+        secondUser = userRepository.save(secondUser);
+
+        long bookingId = bookingService.create(user.getId(), bookingDto).getId();
+
+        WaitlistEntryDto firstEntry = new WaitlistEntryDto();
+        firstEntry.setItemId(item.getId());
+        firstEntry.setStart(LocalDateTime.now().plusDays(1));
+        firstEntry.setEnd(LocalDateTime.now().plusDays(2));
+        bookingService.joinWaitlist(firstUser.getId(), firstEntry);
+
+        WaitlistEntryDto secondEntry = new WaitlistEntryDto();
+        secondEntry.setItemId(item.getId());
+        secondEntry.setStart(LocalDateTime.now().plusDays(3));
+        secondEntry.setEnd(LocalDateTime.now().plusDays(4));
+        bookingService.joinWaitlist(secondUser.getId(), secondEntry);
+
+        bookingService.update(user.getId(), bookingId, false);
+
+        List<ResponseBookingDto> firstUserBookings = bookingService.getUserBookings(firstUser.getId(), "WAITING");
+        assertThat(firstUserBookings, hasSize(1));
+        assertThat(firstUserBookings.getFirst().getItem().getId(), equalTo(item.getId()));
+        assertThat(firstUserBookings.getFirst().getStart(), equalTo(firstEntry.getStart()));
+
+        assertThat(bookingService.getUserBookings(secondUser.getId(), "ALL"), empty());
+    }
+
+    @Test
+    void joinWaitlistShouldAllowNonOverlappingPeriodsOfSameItem() {
+        initialize();
+
+        WaitlistEntryDto first = new WaitlistEntryDto();
+        first.setItemId(item.getId());
+        first.setStart(LocalDateTime.now().plusDays(1));
+        first.setEnd(LocalDateTime.now().plusDays(2));
+        bookingService.joinWaitlist(user.getId(), first);
+
+        WaitlistEntryDto second = new WaitlistEntryDto();
+        second.setItemId(item.getId());
+        second.setStart(LocalDateTime.now().plusDays(3));
+        second.setEnd(LocalDateTime.now().plusDays(4));
+        WaitlistEntryDto result = bookingService.joinWaitlist(user.getId(), second);
+        assertThat(result.getBookerId(), equalTo(user.getId()));
+
+        WaitlistEntryDto overlapping = new WaitlistEntryDto();
+        overlapping.setItemId(item.getId());
+        overlapping.setStart(second.getStart().plusHours(1));
+        overlapping.setEnd(second.getEnd().plusDays(1));
+        assertThrows(ValidationException.class, () -> {
+            bookingService.joinWaitlist(user.getId(), overlapping);
+        });
+    }
+
+    @Test
+    void joinWaitlistShouldIgnoreClientSuppliedId() {
+        initialize();
+
+        User otherUser = new User();
+        otherUser.setName("otherUser");
+        otherUser.setEmail("other@email.ru");
+        otherUser = userRepository.save(otherUser);
+
+        WaitlistEntryDto ownEntry = new WaitlistEntryDto();
+        ownEntry.setItemId(item.getId());
+        ownEntry.setStart(LocalDateTime.now().plusDays(1));
+        ownEntry.setEnd(LocalDateTime.now().plusDays(2));
+        long ownEntryId = bookingService.joinWaitlist(user.getId(), ownEntry).getId();
+
+        WaitlistEntryDto foreignEntry = new WaitlistEntryDto();
+        foreignEntry.setId(ownEntryId);
+        foreignEntry.setItemId(item.getId());
+        foreignEntry.setStart(ownEntry.getStart());
+        foreignEntry.setEnd(ownEntry.getEnd());
+        WaitlistEntryDto result = bookingService.joinWaitlist(otherUser.getId(), foreignEntry);
+
+        assertThat(result.getId(), not(equalTo(ownEntryId)));
+        // Запись первого пользователя осталась его: удалить ее может только он
+        long otherUserId = otherUser.getId();
+        assertThrows(OwnershipException.class, () -> {
+            bookingService.leaveWaitlist(otherUserId, ownEntryId);
+        });
+        bookingService.leaveWaitlist(user.getId(), ownEntryId);
+    }
+
+    @Test
+    void updateShouldThrowOwnershipExceptionIfRejectedByNotOwner() {
+        initialize();
+
+        User otherUser = new User();
+        otherUser.setName("otherUser");
+        otherUser.setEmail("other@email.ru");
+        long otherUserId = userRepository.save(otherUser).getId();
+
+        long bookingId = bookingService.create(user.getId(), bookingDto).getId();
+
+        assertThrows(OwnershipException.class, () -> {
+            bookingService.update(otherUserId, bookingId, false);
+        });
+        assertThat(bookingService.get(user.getId(), bookingId).getStatus(), equalTo("WAITING"));
+    }
+
+    @Test
+    void updateShouldSkipWaitlistEntriesOverlappingApprovedBookings() {
+        initialize();
+
+        User firstUser = new User();
+        firstUser.setName("firstUser");
+        firstUser.setEmail("first@email.ru");
+        firstUser = userRepository.save(firstUser);
+
+        User secondUser = new User();
+        secondUser.setName("secondUser");
+        secondUser.setEmail("second@email.ru");
+        secondUser = userRepository.save(secondUser);
+
+        bookingDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(2));
+        long approvedId = bookingService.create(user.getId(), bookingDto).getId();
+        bookingService.update(user.getId(), approvedId, true);
+        // вещь снова открыта для бронирования на другие даты
+        item.setAvailable(true);
+        itemRepository.save(item);
+
+        bookingDto.setStart(LocalDateTime.now().plusDays(5));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(6));
+        long rejectedId = bookingService.create(user.getId(), bookingDto).getId();
+
+        WaitlistEntryDto overlappingEntry = new WaitlistEntryDto();
+        overlappingEntry.setItemId(item.getId());
+        overlappingEntry.setStart(LocalDateTime.now().plusDays(1).plusHours(1));
+        overlappingEntry.setEnd(LocalDateTime.now().plusDays(3));
+        bookingService.joinWaitlist(firstUser.getId(), overlappingEntry);
+
+        WaitlistEntryDto freeEntry = new WaitlistEntryDto();
+        freeEntry.setItemId(item.getId());
+        freeEntry.setStart(LocalDateTime.now().plusDays(3));
+        freeEntry.setEnd(LocalDateTime.now().plusDays(4));
+        bookingService.joinWaitlist(secondUser.getId(), freeEntry);
+
+        bookingService.update(user.getId(), rejectedId, false);
+
+        assertThat(bookingService.getUserBookings(firstUser.getId(), "ALL"), empty());
+        List<ResponseBookingDto> secondUserBookings = bookingService.getUserBookings(secondUser.getId(), "WAITING");
+        assertThat(secondUserBookings, hasSize(1));
+        assertThat(secondUserBookings.getFirst().getStart(), equalTo(freeEntry.getStart()));
+    }
+
+    @Test
+    void updateShouldNotPromoteWaitlistIfItemIsNotAvailable() {
+        initialize();
+
+        User firstUser = new User();
+        firstUser.setName("firstUser");
+        firstUser.setEmail("first@email.ru");
+        firstUser = userRepository.save(firstUser);
+
+        long bookingId = bookingService.create(user.getId(), bookingDto).getId();
+
+        WaitlistEntryDto entry = new WaitlistEntryDto();
+        entry.setItemId(item.getId());
+        entry.setStart(LocalDateTime.now().plusDays(1));
+        entry.setEnd(LocalDateTime.now().plusDays(2));
+        bookingService.joinWaitlist(firstUser.getId(), entry);
+
+        item.setAvailable(false);
+        itemRepository.save(item);
+        bookingService.update(user.getId(), bookingId, false);
+
+        assertThat(bookingService.getUserBookings(firstUser.getId(), "ALL"), empty());
+    }
+
+    @Test
+    void createAndUpdateShouldWriteEventsToOutbox() {
+        initialize();
+        bookingDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(2));
+
+        long bookingId = bookingService.create(user.getId(), bookingDto).getId();
+        bookingService.update(user.getId(), bookingId, true);
+
+        List<BookingEvent> events = bookingEventRepository.findAll(Sort.by("id"));
+        assertThat(events, hasSize(2));
+        assertThat(events.get(0).getBookingId(), equalTo(bookingId));
+        assertThat(events.get(0).getStatus(), equalTo(Status.WAITING));
+        assertThat(events.get(1).getStatus(), equalTo(Status.APPROVED));
+        assertThat(events.get(1).getOwnerId(), equalTo(user.getId()));
+    }
+
+    @Test
+    void publishedEventsShouldBeKeptForReplay() {
+        initialize();
+        bookingDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(2));
+        long bookingId = bookingService.create(user.getId(), bookingDto).getId();
+
+        bookingEventRelay.publish();
+
+        // Опубликованное событие получает номер в потоке, остается в таблице для повтора и повторно не разбирается
+        assertThat(bookingEventRepository.findFirst100ByPublishedIsNullOrderByIdAsc(), empty());
+        List<BookingEvent> published = bookingEventRepository
+                .findAllByOwnerIdAndStreamPositionBetweenOrderByStreamPositionAsc(user.getId(), 0, Long.MAX_VALUE);
+        assertThat(published, hasSize(1));
+        long position = published.getFirst().getStreamPosition();
+
+        // Разбор держит строку booking_event_sequencer до конца транзакции теста,
+        // поэтому следующее событие получает следующий номер
+        bookingService.update(user.getId(), bookingId, true);
+        bookingEventRelay.publish();
+        assertThat(bookingEventRepository.findFirst100ByStreamPositionGreaterThanOrderByStreamPositionAsc(
+                position).getFirst().getStatus(), equalTo(Status.APPROVED));
+        assertThat(bookingEventRepository.findLastStreamPosition(), equalTo(position + 1));
+
+        bookingEventRelay.deleteExpired();
+        assertThat(bookingEventRepository.findAll(), hasSize(2));
+    }
+
+    @Test
+    void createBatchShouldCreateAllBookings() {
+        initialize();
+
+        Item secondItem = new Item();
+        secondItem.setName("secondItemName");
+        secondItem.setDescription("secondItemDescription");
+        secondItem.setAvailable(true);
+        secondItem.setOwner(user);
+        secondItem = itemRepository.save(secondItem);
+
+        BookingDto first = new BookingDto();
+        first.setItemId(item.getId());
+        first.setStart(LocalDateTime.now().plusDays(1));
+        first.setEnd(LocalDateTime.now().plusDays(2));
+
+        BookingDto second = new BookingDto();
+        second.setItemId(secondItem.getId());
+        second.setStart(LocalDateTime.now().plusDays(1));
+        second.setEnd(LocalDateTime.now().plusDays(3));
+
+        BookingCartDto cartDto = new BookingCartDto();
+        cartDto.setBookings(List.of(first, second));
+
+        List<ResponseBookingDto> created = bookingService.createBatch(user.getId(), cartDto);
+
+        assertThat(created, hasSize(2));
+        assertThat(created.get(0).getItem().getId(), equalTo(item.getId()));
+        assertThat(created.get(1).getItem().getName(), equalTo(secondItem.getName()));
+        assertThat(created.get(1).getBooker().getId(), equalTo(user.getId()));
+        assertThat(created.get(1).getStatus(), equalTo(Status.WAITING.name()));
+        assertThat(bookingService.getUserBookings(user.getId(), "FUTURE"), hasSize(2));
+    }
+
+    @Test
+    void createBatchShouldFailIfAnyItemIsNotAvailable() {
+        initialize();
+
+        Item unavailableItem = new Item();
+        unavailableItem.setName("unavailableItemName");
+        unavailableItem.setDescription("unavailableItemDescription");
+        unavailableItem.setAvailable(false);
+        unavailableItem.setOwner(user);
+        unavailableItem = itemRepository.save(unavailableItem);
+
+        BookingDto first = new BookingDto();
+        first.setItemId(item.getId());
+        first.setStart(LocalDateTime.now().plusDays(1));
+        first.setEnd(LocalDateTime.now().plusDays(2));
+
+        BookingDto second = new BookingDto();
+        second.setItemId(unavailableItem.getId());
+        second.setStart(LocalDateTime.now().plusDays(1));
+        second.setEnd(LocalDateTime.now().plusDays(2));
+
+        BookingCartDto cartDto = new BookingCartDto();
+        cartDto.setBookings(List.of(first, second));
+
+        assertThrows(InternalServerException.class, () -> {
+            bookingService.createBatch(user.getId(), cartDto);
+        });
+        assertThat(bookingService.getUserBookings(user.getId(), "ALL"), empty());
+    }
+
+    @Test
+    void createBatchShouldThrowValidationExceptionIfPeriodsOverlap() {
+        initialize();
+
+        BookingDto first = new BookingDto();
+        first.setItemId(item.getId());
+        first.setStart(LocalDateTime.now().plusDays(1));
+        first.setEnd(LocalDateTime.now().plusDays(3));
+
+        BookingDto second = new BookingDto();
+        second.setItemId(item.getId());
+        second.setStart(LocalDateTime.now().plusDays(2));
+        second.setEnd(LocalDateTime.now().plusDays(4));
+
+        BookingCartDto cartDto = new BookingCartDto();
+        cartDto.setBookings(List.of(first, second));
+
+        assertThrows(ValidationException.class, () -> {
+            bookingService.createBatch(user.getId(), cartDto);
+        });
+    }
+
     private void initialize() {
         user = new User();
         user.setName("name");
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -13,6 +14,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.booking.dto.ShortBookingDto;
 import ru.practicum.shareit.common.controller.ErrorHandler;
 import ru.practicum.shareit.common.exceptions.OwnershipException;
+import ru.practicum.shareit.common.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.controller.ItemController;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -22,11 +24,13 @@ import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -39,6 +43,10 @@ public class ItemControllerTest {
     @Mock
     private ItemService service;
 
+    // Реальное хранилище ключей идемпотентности
+    @Spy
+    private IdempotencyStore idempotencyStore = new IdempotencyStore(Duration.ofMinutes(1), 100, Duration.ofSeconds(5));
+
     // Создаем реальный контроллер и автоматически внедряем в него мок-сервис
     @InjectMocks
     private ItemController controller;
@@ -97,6 +105,36 @@ public class ItemControllerTest {
         );
     }
 
+    @Test
+    void createWithReusedIdempotencyKeyShouldReturnConflict() throws Exception {
+        initialize();
+        itemDto.setId(1L);
+
+        when(service.create(anyLong(), any(ItemDto.class))).thenReturn(itemDto);
+
+        mvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .header("Idempotency-Key", "key-1")
+                        .content(mapper.writeValueAsString(itemDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        // Тот же ключ с другим телом запроса
+        itemDto.setName("otherName");
+        mvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .header("Idempotency-Key", "key-1")
+                        .content(mapper.writeValueAsString(itemDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+
+        verify(service, times(1)).create(anyLong(), any(ItemDto.class));
+    }
+
     @Test
     void updateTest() throws Exception {
         initialize();
@@ -266,6 +266,34 @@ public class ItemServiceIntegrationTest {
         assertThat(result.getAuthorName(), equalTo(booker1.getName()));
     }
 
+    @Test
+    void commentShouldThrowInternalServerExceptionIfBookingHasNotEnded() {
+        booker1 = new User();
+        booker1.setName("booker1");
+        booker1.setEmail("booker1@email.ru");
+        userRepository.save(booker1);
+
+        item = new Item();
+        item.setName("name");
+        item.setDescription("description");
+        item.setOwner(user);
+        item = itemRepository.save(item);
+
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker1);
+        booking.setStart(LocalDateTime.now().minusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(1));
+        booking.setStatus(Status.APPROVED);
+        bookingRepository.save(booking);
+
+        CommentDto commentDto = new CommentDto();
+        commentDto.setText("someText");
+
+        assertThatThrownBy(() -> itemService.comment(booker1.getId(), commentDto, item.getId()))
+                .isInstanceOf(InternalServerException.class);
+    }
+
     @Test
     void checkItemExistsShouldThrowNotFoExceptionIfItemDoesNotExists() {
         assertThatThrownBy(() -> itemService.checkItemExists(-1L))
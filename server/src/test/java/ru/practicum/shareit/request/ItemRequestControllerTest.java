@@ -15,6 +15,9 @@ import ru.practicum.shareit.item.dto.ResponseItemDto;
 import ru.practicum.shareit.request.controller.ItemRequestController;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestExtendedDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.ItemRequestSummaryDto;
+import ru.practicum.shareit.request.dto.ItemSuggestionDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
 import java.nio.charset.StandardCharsets;
@@ -76,7 +79,7 @@ public class ItemRequestControllerTest {
 
         List<ItemRequestExtendedDto> result = List.of(itemRequestExtendedDto);
 
-        when(service.getOwnRequests(anyLong())).thenReturn(result);
+        when(service.getOwnRequests(anyLong(), any(), anyInt())).thenReturn(new ItemRequestPageDto<>(result, null));
 
         mvc.perform(get("/requests")
                         .header("X-Sharer-User-Id", 7)
@@ -85,7 +88,29 @@ public class ItemRequestControllerTest {
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(content().json(mapper.writeValueAsString(result)));
 
-        verify(service).getOwnRequests(eq(7L));
+        verify(service).getOwnRequests(eq(7L), isNull(), eq(20));
+    }
+
+    @Test
+    void getOwnRequestSummariesTest() throws Exception {
+        ItemRequestSummaryDto summary = new ItemRequestSummaryDto();
+        summary.setId(1);
+        summary.setDescription("description");
+        summary.setRequesterId(7);
+        summary.setResponseCount(2);
+        summary.setCreated(LocalDateTime.now());
+        List<ItemRequestSummaryDto> result = List.of(summary);
+
+        when(service.getOwnRequestSummaries(anyLong(), any(), anyInt())).thenReturn(new ItemRequestPageDto<>(result, null));
+
+        mvc.perform(get("/requests?view=summary&size=5")
+                        .header("X-Sharer-User-Id", 7)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].responseCount").value(2))
+                .andExpect(jsonPath("$[0].items").doesNotExist());
+
+        verify(service).getOwnRequestSummaries(eq(7L), isNull(), eq(5));
     }
 
     @Test
@@ -94,16 +119,19 @@ public class ItemRequestControllerTest {
 
         List<ItemRequestDto> result = List.of(itemRequestDto);
 
-        when(service.getAllRequests(anyLong())).thenReturn(result);
+        when(service.getAllRequests(anyLong(), any(), anyInt())).thenReturn(new ItemRequestPageDto<>(result, "next"));
 
         mvc.perform(get("/requests/all")
                         .header("X-Sharer-User-Id", 7)
+                        .param("cursor", "current")
+                        .param("size", "1")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(ItemRequestController.NEXT_CURSOR_HEADER, "next"))
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(content().json(mapper.writeValueAsString(result)));
 
-        verify(service).getAllRequests(eq(7L));
+        verify(service).getAllRequests(eq(7L), eq("current"), eq(1));
     }
 
     @Test
@@ -121,6 +149,21 @@ public class ItemRequestControllerTest {
         verify(service).getRequest(eq(7L), eq(1L));
     }
 
+    @Test
+    void getSuggestionsTest() throws Exception {
+        List<ItemSuggestionDto> suggestions = List.of(new ItemSuggestionDto(5, "drill", 2, 1.5));
+
+        when(service.getSuggestions(anyLong(), anyLong())).thenReturn(suggestions);
+
+        mvc.perform(get("/requests/1/suggestions")
+                        .header("X-Sharer-User-Id", 7)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(suggestions)));
+
+        verify(service).getSuggestions(eq(7L), eq(1L));
+    }
+
     private void initialize() {
         itemRequestDto = new ItemRequestDto();
         itemRequestDto.setId(1);
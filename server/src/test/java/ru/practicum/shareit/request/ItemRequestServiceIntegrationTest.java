@@ -4,22 +4,29 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.transaction.AfterTransaction;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.exceptions.BadRequestException;
 import ru.practicum.shareit.common.exceptions.NotFoundException;
 import ru.practicum.shareit.item.dto.ResponseItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestExtendedDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
+import ru.practicum.shareit.request.dto.ItemRequestSummaryDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.request.service.RequestFeedCache;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
 
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -33,6 +40,8 @@ public class ItemRequestServiceIntegrationTest {
     private final UserRepository userRepository;
     private final ItemRequestRepository itemRequestRepository;
     private final ItemRepository itemRepository;
+    private final UserService userService;
+    private final RequestFeedCache requestFeedCache;
 
     private User user;
     private User itemOwner;
@@ -41,6 +50,13 @@ public class ItemRequestServiceIntegrationTest {
     private ItemRequestDto itemRequestDto;
     private ItemRequestDto secondItemRequestDto;
 
+    //кэш ленты видит запросы только после коммита, а транзакция теста откатывается:
+    //тесты ленты перечитывают кэш в своей транзакции, а после нее он перечитывается заново
+    @AfterTransaction
+    void reloadFeedCache() {
+        requestFeedCache.warmUp();
+    }
+
     @Test
     void createShouldThrowNotFoundExceptionIfUserIsNotExist() {
         assertThrows(NotFoundException.class, () -> {
@@ -64,7 +80,7 @@ public class ItemRequestServiceIntegrationTest {
     @Test
     void getOwnRequestsShouldThrowNotFoundExceptionIfUserIsNotExist() {
         assertThrows(NotFoundException.class, () -> {
-            itemRequestService.getOwnRequests(-1);
+            itemRequestService.getOwnRequests(-1, null, 20);
         });
     }
 
@@ -72,7 +88,7 @@ public class ItemRequestServiceIntegrationTest {
     void getOwnRequestsShouldReturnEmptyListIfTheUserDidNotHaveAnyRequests() {
         initialize();
 
-        List<ItemRequestExtendedDto> result = itemRequestService.getOwnRequests(user.getId());
+        List<ItemRequestExtendedDto> result = itemRequestService.getOwnRequests(user.getId(), null, 20).getRequests();
 
         assertThat(result, empty());
     }
@@ -81,7 +97,7 @@ public class ItemRequestServiceIntegrationTest {
     void getOwnRequestsShouldReturnCorrectDescSortedDtoList() throws InterruptedException {
         extendedInitialize();
 
-        List<ItemRequestExtendedDto> result = itemRequestService.getOwnRequests(user.getId());
+        List<ItemRequestExtendedDto> result = itemRequestService.getOwnRequests(user.getId(), null, 20).getRequests();
         ItemRequestExtendedDto first = result.getFirst();
 
         assertThat(result, hasSize(2));
@@ -96,10 +112,78 @@ public class ItemRequestServiceIntegrationTest {
         assertThat(requestItem.getOwnerId(), equalTo(itemOwner.getId()));
     }
 
+    @Test
+    void getOwnRequestsShouldNotReturnItemsOfDeletedOwner() throws InterruptedException {
+        extendedInitialize();
+
+        userService.delete(itemOwner.getId());
+
+        List<ItemRequestExtendedDto> result = itemRequestService.getOwnRequests(user.getId(), null, 20).getRequests();
+        assertThat(result, hasSize(2));
+        assertThat(result.get(0).getItems(), empty());
+        assertThat(result.get(1).getItems(), empty());
+    }
+
+    @Test
+    void getOwnRequestsShouldReturnPagesByCursor() throws InterruptedException {
+        extendedInitialize();
+
+        ItemRequestPageDto<ItemRequestExtendedDto> firstPage = itemRequestService.getOwnRequests(user.getId(), null, 1);
+        assertThat(firstPage.getRequests(), hasSize(1));
+        assertThat(firstPage.getRequests().getFirst().getId(), equalTo(secondItemRequestDto.getId()));
+        assertThat(firstPage.getRequests().getFirst().getItems(), hasSize(1));
+        assertThat(firstPage.getNextCursor(), notNullValue());
+
+        ItemRequestPageDto<ItemRequestExtendedDto> secondPage = itemRequestService.getOwnRequests(user.getId(),
+                firstPage.getNextCursor(), 1);
+        assertThat(secondPage.getRequests(), hasSize(1));
+        assertThat(secondPage.getRequests().getFirst().getId(), equalTo(itemRequestDto.getId()));
+        assertThat(secondPage.getRequests().getFirst().getItems().getFirst().getId(), equalTo(item.getId()));
+        assertThat(secondPage.getNextCursor(), nullValue());
+    }
+
+    @Test
+    void getOwnRequestSummariesShouldReturnResponseCounts() throws InterruptedException {
+        extendedInitialize();
+        ItemRequestDto unanswered = new ItemRequestDto();
+        unanswered.setDescription("description3");
+        unanswered = itemRequestService.create(user.getId(), unanswered);
+
+        ItemRequestPageDto<ItemRequestSummaryDto> firstPage = itemRequestService.getOwnRequestSummaries(
+                user.getId(), null, 2);
+        List<ItemRequestSummaryDto> result = firstPage.getRequests();
+
+        assertThat(result, hasSize(2));
+        assertThat(result.get(0).getId(), equalTo(unanswered.getId()));
+        assertThat(result.get(0).getResponseCount(), equalTo(0L));
+        assertThat(result.get(1).getId(), equalTo(secondItemRequestDto.getId()));
+        assertThat(result.get(1).getResponseCount(), equalTo(1L));
+        assertThat(result.get(1).getRequesterId(), equalTo(user.getId()));
+
+        ItemRequestPageDto<ItemRequestSummaryDto> secondPage = itemRequestService.getOwnRequestSummaries(
+                user.getId(), firstPage.getNextCursor(), 2);
+        assertThat(secondPage.getRequests(), hasSize(1));
+        assertThat(secondPage.getRequests().getFirst().getId(), equalTo(itemRequestDto.getId()));
+        assertThat(secondPage.getNextCursor(), nullValue());
+    }
+
+    @Test
+    void getOwnRequestSummariesShouldNotCountItemsOfDeletedOwner() throws InterruptedException {
+        extendedInitialize();
+
+        userService.delete(itemOwner.getId());
+
+        List<ItemRequestSummaryDto> result = itemRequestService.getOwnRequestSummaries(user.getId(), null, 20)
+                .getRequests();
+        assertThat(result, hasSize(2));
+        assertThat(result.get(0).getResponseCount(), equalTo(0L));
+        assertThat(result.get(1).getResponseCount(), equalTo(0L));
+    }
+
     @Test
     void getAllRequestsShouldThrowNotFoundExceptionIfUserIsNotExist() {
         assertThrows(NotFoundException.class, () -> {
-            itemRequestService.getAllRequests(-1);
+            itemRequestService.getAllRequests(-1, null, 20);
         });
     }
 
@@ -111,8 +195,9 @@ public class ItemRequestServiceIntegrationTest {
         ItemRequestDto otherItemRequest = new ItemRequestDto();
         otherItemRequest.setDescription("otherDescription");
         itemRequestService.create(itemOwner.getId(), otherItemRequest);
+        requestFeedCache.warmUp();
 
-        List<ItemRequestDto> result = itemRequestService.getAllRequests(itemOwner.getId());
+        List<ItemRequestDto> result = itemRequestService.getAllRequests(itemOwner.getId(), null, 20).getRequests();
         ItemRequestDto first = result.getFirst();
 
         assertThat(result, hasSize(2));
@@ -122,6 +207,50 @@ public class ItemRequestServiceIntegrationTest {
         assertThat(first.getCreated(), equalTo(secondItemRequestDto.getCreated()));
     }
 
+    @Test
+    void getAllRequestsShouldReturnPagesByCursor() throws InterruptedException {
+        extendedInitialize();
+        requestFeedCache.warmUp();
+
+        ItemRequestPageDto<ItemRequestDto> firstPage = itemRequestService.getAllRequests(itemOwner.getId(), null, 1);
+        assertThat(firstPage.getRequests(), hasSize(1));
+        assertThat(firstPage.getRequests().getFirst().getId(), equalTo(secondItemRequestDto.getId()));
+        assertThat(firstPage.getNextCursor(), notNullValue());
+
+        ItemRequestPageDto<ItemRequestDto> secondPage = itemRequestService.getAllRequests(itemOwner.getId(),
+                firstPage.getNextCursor(), 1);
+        assertThat(secondPage.getRequests(), hasSize(1));
+        assertThat(secondPage.getRequests().getFirst().getId(), equalTo(itemRequestDto.getId()));
+        assertThat(secondPage.getNextCursor(), nullValue());
+    }
+
+    @Test
+    void getAllRequestsShouldNotReturnRequestsOfDeletedUser() throws InterruptedException {
+        extendedInitialize();
+
+        userService.delete(user.getId());
+
+        assertThat(itemRequestService.getAllRequests(itemOwner.getId(), null, 20).getRequests(), empty());
+    }
+
+    @Test
+    void getAllRequestsShouldThrowBadRequestExceptionIfCursorIsInvalid() {
+        initialize();
+
+        assertThrows(BadRequestException.class, () -> {
+            itemRequestService.getAllRequests(user.getId(), "not a cursor", 20);
+        });
+    }
+
+    @Test
+    void getAllRequestsShouldThrowBadRequestExceptionIfPageSizeIsInvalid() {
+        initialize();
+
+        assertThrows(BadRequestException.class, () -> {
+            itemRequestService.getAllRequests(user.getId(), null, 0);
+        });
+    }
+
     @Test
     void getRequestShouldThrowNotFoundExceptionIfUserIsNotExist() {
         assertThrows(NotFoundException.class, () -> {
@@ -157,6 +286,29 @@ public class ItemRequestServiceIntegrationTest {
         assertThat(requestItem.getOwnerId(), equalTo(itemOwner.getId()));
     }
 
+    @Test
+    void getRequestShouldReturnEmptyItemsIfThereAreNoResponses() {
+        initialize();
+        itemRequestDto = itemRequestService.create(user.getId(), itemRequestDto);
+
+        ItemRequestExtendedDto result = itemRequestService.getRequest(user.getId(), itemRequestDto.getId());
+
+        assertThat(result.getId(), equalTo(itemRequestDto.getId()));
+        assertThat(result.getItems(), empty());
+    }
+
+    @Test
+    void getRequestShouldNotReturnItemsOfDeletedOwner() throws InterruptedException {
+        extendedInitialize();
+
+        userService.delete(itemOwner.getId());
+
+        // Сам запрос остается видимым, скрываются только ответы удаленного владельца
+        ItemRequestExtendedDto result = itemRequestService.getRequest(user.getId(), itemRequestDto.getId());
+        assertThat(result.getId(), equalTo(itemRequestDto.getId()));
+        assertThat(result.getItems(), empty());
+    }
+
     private void initialize() {
         user = new User();
         user.setName("userName");
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.RequestEventBroadcaster;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RequestEventBroadcasterTest {
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    //задачи отправки не выполняются: подписчик не разбирает свою очередь
+    private final List<Runnable> pendingDrains = new ArrayList<>();
+
+    @Test
+    void publishShouldDisconnectSlowSubscriberWhenBufferIsFull() {
+        RequestEventBroadcaster broadcaster = new RequestEventBroadcaster(TIMEOUT, 2, pendingDrains::add);
+        broadcaster.subscribe(1);
+
+        broadcaster.publish(request(1, 2));
+        broadcaster.publish(request(2, 2));
+        assertThat(broadcaster.getSubscriberCount(), equalTo(1));
+
+        broadcaster.publish(request(3, 2));
+        assertThat(broadcaster.getSubscriberCount(), equalTo(0));
+    }
+
+    @Test
+    void publishShouldNotSendOwnRequestsToRequester() {
+        RequestEventBroadcaster broadcaster = new RequestEventBroadcaster(TIMEOUT, 1, pendingDrains::add);
+        broadcaster.subscribe(1);
+
+        broadcaster.publish(request(1, 1));
+        broadcaster.publish(request(2, 1));
+
+        assertThat(broadcaster.getSubscriberCount(), equalTo(1));
+        assertThat(pendingDrains, empty());
+    }
+
+    @Test
+    void publishShouldKeepSubscriberThatReadsEvents() {
+        RequestEventBroadcaster broadcaster = new RequestEventBroadcaster(TIMEOUT, 2, Runnable::run);
+        broadcaster.subscribe(1);
+
+        for (long id = 1; id <= 10; id++) {
+            broadcaster.publish(request(id, 2));
+        }
+
+        assertThat(broadcaster.getSubscriberCount(), equalTo(1));
+    }
+
+    private static ItemRequestDto request(long id, long requesterId) {
+        ItemRequestDto itemRequestDto = new ItemRequestDto();
+        itemRequestDto.setId(id);
+        itemRequestDto.setDescription("description" + id);
+        itemRequestDto.setRequesterId(requesterId);
+        return itemRequestDto;
+    }
+}
@@ -0,0 +1,146 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestCursor;
+import ru.practicum.shareit.request.service.RequestFeedCache;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserDeletedEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RequestFeedCacheTest {
+    private static final LocalDateTime CREATED = LocalDateTime.of(2020, 1, 1, 10, 0);
+
+    private final ItemRequestRepository repository = mock(ItemRequestRepository.class);
+
+    @Test
+    void readShouldReturnNewestFirstWithoutOwnRequests() {
+        RequestFeedCache cache = warmedUpCache(10);
+        cache.add(request(1, 100, CREATED));
+        cache.add(request(2, 200, CREATED.plusMinutes(1)));
+        cache.add(request(3, 100, CREATED.plusMinutes(2)));
+
+        RequestFeedCache.FeedPage page = cache.read(200, null, 10);
+
+        assertThat(ids(page), equalTo(List.of(3L, 1L)));
+        assertThat(page.exhausted(), is(false));
+    }
+
+    @Test
+    void readShouldContinueAfterCursor() {
+        RequestFeedCache cache = warmedUpCache(10);
+        cache.add(request(1, 100, CREATED));
+        cache.add(request(2, 100, CREATED.plusMinutes(1)));
+        cache.add(request(3, 100, CREATED.plusMinutes(2)));
+
+        RequestFeedCache.FeedPage page = cache.read(200,
+                new ItemRequestCursor(CREATED.plusMinutes(2), 3), 10);
+
+        assertThat(ids(page), equalTo(List.of(2L, 1L)));
+    }
+
+    @Test
+    void readShouldPointToDatabaseBeyondEvictedWindow() {
+        RequestFeedCache cache = warmedUpCache(2);
+        cache.add(request(1, 100, CREATED));
+        cache.add(request(2, 100, CREATED.plusMinutes(1)));
+        cache.add(request(3, 100, CREATED.plusMinutes(2)));
+
+        RequestFeedCache.FeedPage page = cache.read(200, null, 10);
+
+        assertThat(ids(page), equalTo(List.of(3L, 2L)));
+        assertThat(page.exhausted(), is(true));
+        assertThat(page.continueAfter(), equalTo(new ItemRequestCursor(CREATED.plusMinutes(1), 2)));
+    }
+
+    @Test
+    void readShouldKeepOrderForOutOfOrderInsert() {
+        RequestFeedCache cache = warmedUpCache(10);
+        cache.add(request(2, 100, CREATED.plusMinutes(1)));
+        cache.add(request(1, 100, CREATED));
+        cache.add(request(3, 100, CREATED.plusMinutes(1)));
+
+        assertThat(ids(cache.read(200, null, 10)), equalTo(List.of(2L, 3L, 1L)));
+    }
+
+    @Test
+    void addShouldBeVisibleOnlyAfterCommit() {
+        RequestFeedCache cache = warmedUpCache(10);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.add(request(1, 100, CREATED));
+            assertThat(cache.read(200, null, 10).requests(), empty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(ids(cache.read(200, null, 10)), equalTo(List.of(1L)));
+    }
+
+    @Test
+    void onUserDeletedShouldRemoveRequestsOfUser() {
+        RequestFeedCache cache = warmedUpCache(10);
+        cache.add(request(1, 100, CREATED));
+        cache.add(request(2, 200, CREATED.plusMinutes(1)));
+
+        cache.onUserDeleted(new UserDeletedEvent(200));
+
+        assertThat(ids(cache.read(300, null, 10)), equalTo(List.of(1L)));
+    }
+
+    @Test
+    void readBeforeWarmUpShouldFallBackToDatabaseAndKeepAddedRequests() {
+        RequestFeedCache cache = new RequestFeedCache(repository, 10);
+        ItemRequestCursor cursor = new ItemRequestCursor(CREATED, 1);
+
+        RequestFeedCache.FeedPage page = cache.read(200, cursor, 10);
+        assertThat(page.requests(), empty());
+        assertThat(page.exhausted(), is(true));
+        assertThat(page.continueAfter(), equalTo(cursor));
+
+        // Запрос 2 создан во время заполнения: в прочитанное из базы он не попал
+        cache.add(request(1, 100, CREATED));
+        cache.add(request(2, 100, CREATED.plusMinutes(1)));
+        when(repository.findFeedHead(any())).thenReturn(List.of(request(1, 100, CREATED)));
+        cache.warmUp();
+
+        assertThat(ids(cache.read(200, null, 10)), equalTo(List.of(2L, 1L)));
+    }
+
+    private RequestFeedCache warmedUpCache(int capacity) {
+        when(repository.findFeedHead(any())).thenReturn(List.of());
+        RequestFeedCache cache = new RequestFeedCache(repository, capacity);
+        cache.warmUp();
+        return cache;
+    }
+
+    private static ItemRequest request(long id, long requesterId, LocalDateTime created) {
+        User requester = new User();
+        requester.setId(requesterId);
+
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setId(id);
+        itemRequest.setDescription("description" + id);
+        itemRequest.setRequester(requester);
+        itemRequest.setCreated(created);
+        return itemRequest;
+    }
+
+    private static List<Long> ids(RequestFeedCache.FeedPage page) {
+        return page.requests().stream().map(ItemRequestDto::getId).toList();
+    }
+}
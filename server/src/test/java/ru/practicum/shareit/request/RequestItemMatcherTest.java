@@ -0,0 +1,177 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemSuggestionDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.RequestItemMatcher;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserDeletedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RequestItemMatcherTest {
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final ItemRequestRepository itemRequestRepository = mock(ItemRequestRepository.class);
+
+    @Test
+    void getSuggestionsShouldRankItemsWithMoreCommonWordsFirst() {
+        RequestItemMatcher matcher = warmedUpMatcher(10);
+        matcher.onItemSaved(item(1, 100, "Дрель", "Обычная дрель", true));
+        matcher.onItemSaved(item(2, 100, "Дрель ударная", "Ударная дрель с перфоратором", true));
+        matcher.onItemSaved(item(3, 100, "Пылесос", "Моющий пылесос", true));
+        ItemRequest request = request(1, 200, "Нужна ударная дрель");
+        matcher.onRequestCreated(request);
+
+        assertThat(ids(matcher.getSuggestions(request)), equalTo(List.of(2L, 1L)));
+    }
+
+    @Test
+    void getSuggestionsShouldIncludeItemSavedAfterRequest() {
+        RequestItemMatcher matcher = warmedUpMatcher(10);
+        ItemRequest request = request(1, 200, "Нужна палатка");
+        matcher.onRequestCreated(request);
+        matcher.onItemSaved(item(1, 100, "Палатка", "Двухместная палатка", true));
+
+        List<ItemSuggestionDto> suggestions = matcher.getSuggestions(request);
+
+        assertThat(ids(suggestions), equalTo(List.of(1L)));
+        assertThat(suggestions.getFirst().getOwnerId(), equalTo(100L));
+        assertThat(suggestions.getFirst().getScore(), greaterThan(0.0));
+    }
+
+    @Test
+    void getSuggestionsShouldSkipOwnItemsOfRequester() {
+        RequestItemMatcher matcher = warmedUpMatcher(10);
+        matcher.onItemSaved(item(1, 200, "Палатка", "Своя палатка", true));
+        matcher.onItemSaved(item(2, 100, "Палатка", "Чужая палатка", true));
+        ItemRequest request = request(1, 200, "Нужна палатка");
+        matcher.onRequestCreated(request);
+
+        assertThat(ids(matcher.getSuggestions(request)), equalTo(List.of(2L)));
+    }
+
+    @Test
+    void getSuggestionsShouldKeepOnlyTopSuggestions() {
+        RequestItemMatcher matcher = warmedUpMatcher(1);
+        matcher.onItemSaved(item(1, 100, "Дрель", "Обычная дрель", true));
+        matcher.onItemSaved(item(2, 100, "Дрель ударная", "Ударная дрель", true));
+        ItemRequest request = request(1, 200, "Нужна ударная дрель");
+        matcher.onRequestCreated(request);
+
+        assertThat(ids(matcher.getSuggestions(request)), equalTo(List.of(2L)));
+    }
+
+    @Test
+    void getSuggestionsShouldRefillWhenItemBecomesUnavailable() {
+        RequestItemMatcher matcher = warmedUpMatcher(1);
+        matcher.onItemSaved(item(1, 100, "Дрель", "Обычная дрель", true));
+        matcher.onItemSaved(item(2, 100, "Дрель ударная", "Ударная дрель", true));
+        ItemRequest request = request(1, 200, "Нужна ударная дрель");
+        matcher.onRequestCreated(request);
+
+        matcher.onItemSaved(item(2, 100, "Дрель ударная", "Ударная дрель", false));
+
+        assertThat(ids(matcher.getSuggestions(request)), equalTo(List.of(1L)));
+    }
+
+    @Test
+    void onUserDeletedShouldRemoveItemsOfUser() {
+        RequestItemMatcher matcher = warmedUpMatcher(10);
+        matcher.onItemSaved(item(1, 100, "Палатка", "Палатка", true));
+        matcher.onItemSaved(item(2, 300, "Палатка", "Палатка", true));
+        ItemRequest request = request(1, 200, "Нужна палатка");
+        matcher.onRequestCreated(request);
+
+        matcher.onUserDeleted(new UserDeletedEvent(100));
+
+        assertThat(ids(matcher.getSuggestions(request)), equalTo(List.of(2L)));
+    }
+
+    @Test
+    void oldRequestsShouldBeEvictedButStillGetSuggestions() {
+        RequestItemMatcher matcher = warmedUpMatcher(10, 1, Duration.ofDays(1));
+        matcher.onItemSaved(item(1, 100, "Палатка", "Двухместная палатка", true));
+        ItemRequest old = request(1, 200, "Нужна палатка");
+        old.setCreated(LocalDateTime.now().minusDays(2));
+        matcher.onRequestCreated(old);
+        ItemRequest first = request(2, 200, "Нужна палатка");
+        ItemRequest second = request(3, 200, "Нужна большая палатка");
+        matcher.onRequestCreated(first);
+        matcher.onRequestCreated(second);
+
+        matcher.onItemSaved(item(1, 100, "Палатка", "Палатка", false));
+        matcher.onItemSaved(item(2, 100, "Палатка", "Палатка", true));
+
+        //вытесненные запросы не держат подборку в индексе, но получают ее по индексу вещей
+        assertThat(ids(matcher.getSuggestions(old)), equalTo(List.of(2L)));
+        assertThat(ids(matcher.getSuggestions(first)), equalTo(List.of(2L)));
+        assertThat(ids(matcher.getSuggestions(second)), equalTo(List.of(2L)));
+    }
+
+    @Test
+    void warmUpShouldSkipRequestsOlderThanMaxAge() {
+        ItemRequest old = request(1, 200, "Нужна палатка");
+        old.setCreated(LocalDateTime.now().minusDays(2));
+        when(itemRequestRepository.findFeedHead(PageRequest.of(0, 5))).thenReturn(List.of(old));
+        RequestItemMatcher matcher = new RequestItemMatcher(itemRepository, itemRequestRepository, 10, 5,
+                Duration.ofDays(1));
+        matcher.warmUp();
+        matcher.onItemSaved(item(1, 100, "Палатка", "Палатка", true));
+
+        assertThat(ids(matcher.getSuggestions(old)), equalTo(List.of(1L)));
+    }
+
+    private RequestItemMatcher warmedUpMatcher(int maxSuggestions) {
+        return warmedUpMatcher(maxSuggestions, 100, Duration.ofDays(30));
+    }
+
+    private RequestItemMatcher warmedUpMatcher(int maxSuggestions, int maxRequests, Duration maxAge) {
+        when(itemRepository.findAllAvailable()).thenReturn(List.of());
+        when(itemRequestRepository.findFeedHead(any())).thenReturn(List.of());
+        RequestItemMatcher matcher = new RequestItemMatcher(itemRepository, itemRequestRepository, maxSuggestions,
+                maxRequests, maxAge);
+        matcher.warmUp();
+        return matcher;
+    }
+
+    private static Item item(long id, long ownerId, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(user(ownerId));
+        return item;
+    }
+
+    private static ItemRequest request(long id, long requesterId, String description) {
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setId(id);
+        itemRequest.setDescription(description);
+        itemRequest.setRequester(user(requesterId));
+        itemRequest.setCreated(LocalDateTime.now());
+        return itemRequest;
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static List<Long> ids(List<ItemSuggestionDto> suggestions) {
+        return suggestions.stream().map(ItemSuggestionDto::getId).toList();
+    }
+}
@@ -11,13 +11,17 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.common.controller.ErrorHandler;
+import ru.practicum.shareit.common.exceptions.BadRequestException;
 import ru.practicum.shareit.common.exceptions.NotFoundException;
 import ru.practicum.shareit.common.exceptions.ValidationException;
 import ru.practicum.shareit.user.controller.UserController;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportErrorDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
 import ru.practicum.shareit.user.dto.UserUpdateDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -82,6 +86,40 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.error").value("Некорректное тело запроса"));
     }
 
+    @Test
+    void readAllShouldReturnBadRequestIfTooManyIds() throws Exception {
+        when(service.getAll(anyList())).thenThrow(new BadRequestException("Слишком много пользователей"));
+
+        mvc.perform(get("/users")
+                        .param("ids", "1", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Слишком много пользователей"));
+    }
+
+    @Test
+    void importUsersShouldReturnReport() throws Exception {
+        UserImportResultDto result = new UserImportResultDto();
+        result.setImported(1);
+        result.setFailed(1);
+        result.getErrors().add(new UserImportErrorDto(2, "Некорректный email"));
+
+        when(service.importUsers(any(InputStream.class))).thenReturn(result);
+
+        mvc.perform(post("/users/import")
+                        .content("{\"name\":\"name1\",\"email\":\"email@email.ru\"}\n{\"name\":\"name2\"}\n")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[0].error").value("Некорректный email"));
+
+        verify(service).importUsers(any(InputStream.class));
+    }
+
     @Test
     void readTest() throws Exception {
         initialize();
@@ -4,16 +4,29 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.exceptions.BadRequestException;
 import ru.practicum.shareit.common.exceptions.NotFoundException;
 import ru.practicum.shareit.common.exceptions.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
 import ru.practicum.shareit.user.dto.UserUpdateDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserImporter;
+import ru.practicum.shareit.user.service.UserPurgeJob;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.LongStream;
+
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Transactional
@@ -22,6 +35,10 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class UserServiceIntegrationTest {
     private final UserService userService;
+    private final UserRepository userRepository;
+    private final UserPurgeJob userPurgeJob;
+    private final UserImporter userImporter;
+    private final JdbcTemplate jdbcTemplate;
 
     @Test
     void createShouldCorrectlySaveUser() {
@@ -53,6 +70,51 @@ public class UserServiceIntegrationTest {
         });
     }
 
+    @Test
+    void createShouldThrowValidationExceptionIfEmailExistsButNotInFilter() {
+        // Пользователь сохранен в обход сервиса, поэтому фильтр email о нем не знает
+        User user = new User();
+        user.setName("name1");
+        user.setEmail("email@email.ru");
+        userRepository.save(user);
+
+        UserDto userDto = new UserDto();
+        userDto.setName("name2");
+        userDto.setEmail("email@email.ru");
+
+        assertThrows(ValidationException.class, () -> {
+            userService.create(userDto);
+        });
+    }
+
+    @Test
+    void getAllShouldReturnUsersInRequestOrder() {
+        UserDto userDto1 = new UserDto();
+        userDto1.setName("name1");
+        userDto1.setEmail("email1@email.ru");
+        userDto1 = userService.create(userDto1);
+
+        UserDto userDto2 = new UserDto();
+        userDto2.setName("name2");
+        userDto2.setEmail("email2@email.ru");
+        userDto2 = userService.create(userDto2);
+
+        List<UserDto> users = userService.getAll(List.of(userDto2.getId(), -1L, userDto1.getId(), userDto2.getId()));
+
+        assertThat(users, hasSize(2));
+        assertThat(users.get(0), equalTo(userDto2));
+        assertThat(users.get(1), equalTo(userDto1));
+    }
+
+    @Test
+    void getAllShouldThrowBadRequestExceptionIfTooManyIds() {
+        List<Long> ids = LongStream.rangeClosed(1, 101).boxed().toList();
+
+        assertThrows(BadRequestException.class, () -> {
+            userService.getAll(ids);
+        });
+    }
+
     @Test
     void getShouldThrowNotFoundExceptionIfUserDoesNotExist() {
         assertThrows(NotFoundException.class, () -> {
@@ -129,4 +191,70 @@ public class UserServiceIntegrationTest {
             userService.delete(userId);
         });
     }
+
+    @Test
+    void importUsersShouldInsertValidLinesAndReportFailures() {
+        UserDto existing = new UserDto();
+        existing.setName("name0");
+        existing.setEmail("existing@email.ru");
+        userService.create(existing);
+
+        String body = String.join("\n",
+                "{\"name\": \"name1\", \"email\": \"first@email.ru\"}",
+                "not a json",
+                "",
+                "{\"name\": \"name2\", \"email\": \"existing@email.ru\"}",
+                "{\"name\": \"name3\", \"email\": \"first@email.ru\"}",
+                "{\"name\": \"\", \"email\": \"empty@email.ru\"}",
+                "{\"name\": \"name4\", \"email\": \"second@email.ru\"}");
+
+        UserImportResultDto result = userImporter.importUsers(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getImported(), equalTo(2L));
+        assertThat(result.getFailed(), equalTo(4L));
+        assertThat(result.getErrors().stream().map(error -> error.getLine()).toList(),
+                equalTo(List.of(2L, 6L, 4L, 5L)));
+        assertThat(userRepository.findEmailsByEmailIn(List.of("first@email.ru", "second@email.ru")), hasSize(2));
+    }
+
+    @Test
+    void purgeNextBatchShouldRemoveDeletedUserRow() {
+        UserDto userDto1 = new UserDto();
+        userDto1.setName("name1");
+        userDto1.setEmail("email@email.ru");
+        userDto1 = userService.create(userDto1);
+        long userId = userDto1.getId();
+
+        userService.delete(userId);
+        assertThat(countUsers(userId), equalTo(1L));
+
+        for (int i = 0; i < 20 && countUsers(userId) > 0; i++) {
+            userPurgeJob.purgeNextBatch();
+        }
+
+        assertThat(countUsers(userId), equalTo(0L));
+    }
+
+    @Test
+    void checkUserExistShouldNotUseCachedResultAfterDelete() {
+        UserDto userDto1 = new UserDto();
+        userDto1.setName("name1");
+        userDto1.setEmail("email@email.ru");
+        userDto1 = userService.create(userDto1);
+        long userId = userDto1.getId();
+
+        // Результат проверки попадает в кэш
+        userService.checkUserExist(userId);
+
+        userService.delete(userId);
+
+        assertThrows(NotFoundException.class, () -> {
+            userService.checkUserExist(userId);
+        });
+    }
+
+    private long countUsers(long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Long.class, userId);
+    }
 }